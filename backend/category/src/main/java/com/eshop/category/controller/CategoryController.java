@@ -1,5 +1,6 @@
 package com.eshop.category.controller;
 
+import com.eshop.category.payload.CategoryNodeResponse;
 import com.eshop.category.payload.CategoryRequest;
 import com.eshop.category.payload.CategoryResponse;
 import com.eshop.category.service.CategoryService;
@@ -10,6 +11,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +25,7 @@ public class CategoryController {
     private CategoryService categoryService;
 
     // ---------- CRUD ---------- //
+    // Read endpoints answer 304 for a matching If-None-Match before any mapping work is done
 
     @PostMapping
     public ResponseEntity<CategoryResponse> create(@Valid @RequestBody CategoryRequest request) {
@@ -31,12 +34,30 @@ public class CategoryController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponse> get(@PathVariable Long id) {
+    public ResponseEntity<CategoryResponse> get(@PathVariable Long id, WebRequest webRequest) {
+        String version = categoryService.getCategoryVersion(id);
+        if (version != null && webRequest.checkNotModified(version)) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getCategory(id));
     }
 
+    /**
+     * Bulk lookup by id (e.g. /batch?ids=1,2,3) so callers can resolve a whole result set in one call
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<CategoryResponse>> getBatch(@RequestParam("ids") List<Long> ids, WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok(categoryService.getCategories(ids));
+    }
+
     @GetMapping
-    public ResponseEntity<Map<String, Object>> list(Pageable pageable) {
+    public ResponseEntity<Map<String, Object>> list(Pageable pageable, WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
         Page<CategoryResponse> page = categoryService.listCategories(pageable);
 
         Map<String, Object> response = new HashMap<>();
@@ -67,7 +88,10 @@ public class CategoryController {
      * Get all active categories (useful for dropdowns or homepage menus)
      */
     @GetMapping("/active")
-    public ResponseEntity<List<CategoryResponse>> listActiveCategories() {
+    public ResponseEntity<List<CategoryResponse>> listActiveCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.listActiveCategories());
     }
 
@@ -75,15 +99,52 @@ public class CategoryController {
      * Get all featured categories (for homepage promotions)
      */
     @GetMapping("/featured")
-    public ResponseEntity<List<CategoryResponse>> listFeaturedCategories() {
+    public ResponseEntity<List<CategoryResponse>> listFeaturedCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.listFeaturedCategories());
     }
 
+    /**
+     * The whole hierarchy, roots first, children nested (served from memory)
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<List<CategoryNodeResponse>> tree(WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok(categoryService.getCategoryTree());
+    }
+
+    /**
+     * Every category below the given one at any depth, parents before children
+     */
+    @GetMapping("/{id}/descendants")
+    public ResponseEntity<List<CategoryNodeResponse>> descendants(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok(categoryService.getDescendants(id));
+    }
+
+    /**
+     * Ids of the category's subtree (itself included by default), e.g. for product listings
+     */
+    @GetMapping("/{id}/descendants/ids")
+    public ResponseEntity<List<Long>> descendantIds(@PathVariable Long id,
+                                                    @RequestParam(value = "includeSelf", defaultValue = "true") boolean includeSelf) {
+        return ResponseEntity.ok(categoryService.getDescendantIds(id, includeSelf));
+    }
+
     /**
      * Get all subcategories under a specific parent category
      */
     @GetMapping("/subcategories/{parentId}")
-    public ResponseEntity<List<CategoryResponse>> listSubcategories(@PathVariable Long parentId) {
+    public ResponseEntity<List<CategoryResponse>> listSubcategories(@PathVariable Long parentId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.getCatalogVersion())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.listSubcategories(parentId));
     }
 }
@@ -0,0 +1,89 @@
+package com.eshop.category.event;
+
+import com.eshop.category.payload.CategoryChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes category changes to the services that cache categories (e.g. PRODUCT-SERVICE).
+ * A target whose host is a registered service id is delivered to every instance of that
+ * service, since each instance keeps its own near-cache; other targets are called as given.
+ * Delivery is best effort and off the request thread: a lost notification only means the
+ * consumer serves the old value until its cache TTL expires. Every call carries the token the
+ * consumers share with this service, since their event endpoints refuse anonymous callers.
+ */
+@Component
+public class CategoryChangeNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryChangeNotifier.class);
+    private static final String TOKEN_HEADER = "X-Category-Events-Token";
+
+    private final RestClient restClient = RestClient.create();
+    private final DiscoveryClient discoveryClient;
+    private final List<String> targets;
+    private final String token;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public CategoryChangeNotifier(DiscoveryClient discoveryClient,
+                                  @Value("${category.change-events.targets:}") List<String> targets,
+                                  @Value("${category.change-events.token:}") String token) {
+        this.discoveryClient = discoveryClient;
+        this.targets = targets;
+        this.token = token;
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangeEvent event) {
+        for (String target : targets) {
+            executor.execute(() -> {
+                for (URI uri : resolve(target)) {
+                    try {
+                        restClient.post()
+                                .uri(uri)
+                                .header(TOKEN_HEADER, token)
+                                .body(event)
+                                .retrieve()
+                                .toBodilessEntity();
+                    } catch (Exception e) {
+                        log.warn("Could not deliver category {} {} event to {}: {}",
+                                event.getCategoryId(), event.getType(), uri, e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    // One URI per registered instance of the target's service, or the target itself
+    private List<URI> resolve(String target) {
+        URI uri = URI.create(target);
+        List<ServiceInstance> instances = uri.getHost() != null ? discoveryClient.getInstances(uri.getHost()) : List.of();
+        if (instances.isEmpty()) {
+            return List.of(uri);
+        }
+        return instances.stream()
+                .map(instance -> UriComponentsBuilder.fromUri(instance.getUri())
+                        .path(uri.getRawPath())
+                        .query(uri.getRawQuery())
+                        .build(true)
+                        .toUri())
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
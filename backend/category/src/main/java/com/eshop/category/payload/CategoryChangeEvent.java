@@ -0,0 +1,23 @@
+package com.eshop.category.payload;
+
+public class CategoryChangeEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private Long categoryId;
+    private String type;
+
+    public CategoryChangeEvent() {}
+    public CategoryChangeEvent(Long categoryId, String type) {
+        this.categoryId = categoryId;
+        this.type = type;
+    }
+
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+}
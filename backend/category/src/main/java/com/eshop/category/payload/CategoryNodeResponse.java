@@ -0,0 +1,50 @@
+package com.eshop.category.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * A category as a node of the category tree. {@code children} is only present in the nested
+ * /tree view; flat descendant lists leave it out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CategoryNodeResponse {
+
+    private Long id;
+    private Long parentId;
+    private String name;
+    private String slug;
+    private String imageUrl;
+    private Boolean active;
+    private Boolean featured;
+    private int depth;
+    private List<CategoryNodeResponse> children;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getParentId() { return parentId; }
+    public void setParentId(Long parentId) { this.parentId = parentId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getSlug() { return slug; }
+    public void setSlug(String slug) { this.slug = slug; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public Boolean getFeatured() { return featured; }
+    public void setFeatured(Boolean featured) { this.featured = featured; }
+
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
+    public List<CategoryNodeResponse> getChildren() { return children; }
+    public void setChildren(List<CategoryNodeResponse> children) { this.children = children; }
+}
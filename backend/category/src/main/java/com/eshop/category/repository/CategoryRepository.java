@@ -3,7 +3,12 @@ package com.eshop.category.repository;
 
 import com.eshop.category.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,45 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByNameIgnoreCase(String name);
     List<Category> findByActiveTrue();
     List<Category> findByFeaturedTrueAndActiveTrue();
+
+    // Whole hierarchy in one statement, no entities: the input of CategoryTree
+    @Query("select c.id as id, c.parent.id as parentId, c.name as name, c.slug as slug, c.imageUrl as imageUrl, " +
+            "c.active as active, c.featured as featured from Category c order by c.id")
+    List<TreeRow> findTreeRows();
+
+    interface TreeRow {
+        Long getId();
+        Long getParentId();
+        String getName();
+        String getSlug();
+        String getImageUrl();
+        Boolean getActive();
+        Boolean getFeatured();
+    }
+
+    // Direct children of a whole page of categories in one statement (instead of one lazy load per row)
+    @Query("select c.parent.id as parentId, c.id as id, c.name as name, c.imageUrl as imageUrl, c.active as active " +
+            "from Category c where c.parent.id in :parentIds order by c.id")
+    List<ChildRow> findChildRows(@Param("parentIds") Collection<Long> parentIds);
+
+    interface ChildRow {
+        Long getParentId();
+        Long getId();
+        String getName();
+        String getImageUrl();
+        Boolean getActive();
+    }
+
+    // Version probes for conditional GETs; a category's response embeds its direct children
+    @Query("select count(c) as count, max(c.updatedAt) as lastUpdated from Category c " +
+            "where c.id = :id or c.parent.id = :id")
+    VersionStamp findVersionWithChildren(@Param("id") Long id);
+
+    @Query("select count(c) as count, max(c.updatedAt) as lastUpdated from Category c")
+    VersionStamp findCatalogVersion();
+
+    interface VersionStamp {
+        long getCount();
+        Instant getLastUpdated();
+    }
 }
@@ -1,5 +1,6 @@
 package com.eshop.category.service;
 
+import com.eshop.category.payload.CategoryNodeResponse;
 import com.eshop.category.payload.CategoryRequest;
 import com.eshop.category.payload.CategoryResponse;
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ public interface CategoryService {
     // Basic CRUD
     CategoryResponse createCategory(CategoryRequest request);
     CategoryResponse getCategory(Long id);
+    List<CategoryResponse> getCategories(List<Long> ids);
     Page<CategoryResponse> listCategories(Pageable pageable);
     CategoryResponse updateCategory(Long id, CategoryRequest request);
     void deleteCategory(Long id);
@@ -20,4 +22,13 @@ public interface CategoryService {
     List<CategoryResponse> listActiveCategories();
     List<CategoryResponse> listFeaturedCategories();
     List<CategoryResponse> listSubcategories(Long parentId);
+
+    // Hierarchy, served from the in-memory category tree
+    List<CategoryNodeResponse> getCategoryTree();
+    List<CategoryNodeResponse> getDescendants(Long id);
+    List<Long> getDescendantIds(Long id, boolean includeSelf);
+
+    // ETag values for conditional GETs (null when the category does not exist)
+    String getCategoryVersion(Long id);
+    String getCatalogVersion();
 }
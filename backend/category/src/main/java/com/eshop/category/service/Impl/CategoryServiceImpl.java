@@ -2,30 +2,48 @@ package com.eshop.category.service.Impl;
 
 import com.eshop.category.entity.Category;
 import com.eshop.category.exception.CategoryServiceException;
+import com.eshop.category.payload.CategoryChangeEvent;
+import com.eshop.category.payload.CategoryNodeResponse;
 import com.eshop.category.payload.CategoryRequest;
 import com.eshop.category.payload.CategoryResponse;
 import com.eshop.category.payload.SubCategoryResponse;
 import com.eshop.category.repository.CategoryRepository;
 import com.eshop.category.service.CategoryService;
+import com.eshop.category.tree.CategoryTree;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CategoryTree categoryTree;
+
     // ----------------- Helper Mappers -----------------
 
+    // Reads only the row itself; the parent id comes from the FK without initializing the proxy
     private CategoryResponse toResponse(Category c) {
         CategoryResponse r = new CategoryResponse();
         r.setId(c.getId());
@@ -40,23 +58,43 @@ public class CategoryServiceImpl implements CategoryService {
         r.setParentId(c.getParent() != null ? c.getParent().getId() : null);
         r.setCreatedAt(c.getCreatedAt());
         r.setUpdatedAt(c.getUpdatedAt());
+        return r;
+    }
 
-        // Map subcategories if loaded
-        if (c.getChildren() != null && !c.getChildren().isEmpty()) {
-            List<SubCategoryResponse> subs = c.getChildren().stream()
-                    .map(child -> {
-                        SubCategoryResponse sub = new SubCategoryResponse();
-                        sub.setId(child.getId());
-                        sub.setName(child.getName());
-                        sub.setImageUrl(child.getImageUrl());
-                        sub.setActive(child.getActive());
-                        return sub;
-                    })
-                    .collect(Collectors.toList());
-            r.setChildren(subs);
+    // Maps a list of categories with their subcategories using one extra query in total
+    private List<CategoryResponse> toResponses(List<Category> categories) {
+        if (categories.isEmpty()) {
+            return List.of();
         }
+        List<CategoryResponse> responses = categories.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
 
-        return r;
+        Map<Long, List<SubCategoryResponse>> childrenByParent = categoryRepository
+                .findChildRows(responses.stream().map(CategoryResponse::getId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.groupingBy(CategoryRepository.ChildRow::getParentId,
+                        Collectors.mapping(this::toSubCategory, Collectors.toList())));
+        for (CategoryResponse r : responses) {
+            List<SubCategoryResponse> subs = childrenByParent.get(r.getId());
+            if (subs != null) {
+                r.setChildren(subs);
+            }
+        }
+        return responses;
+    }
+
+    private CategoryResponse toResponseWithChildren(Category c) {
+        return toResponses(List.of(c)).get(0);
+    }
+
+    private SubCategoryResponse toSubCategory(CategoryRepository.ChildRow row) {
+        SubCategoryResponse sub = new SubCategoryResponse();
+        sub.setId(row.getId());
+        sub.setName(row.getName());
+        sub.setImageUrl(row.getImageUrl());
+        sub.setActive(row.getActive());
+        return sub;
     }
 
     private void copy(CategoryRequest req, Category c) {
@@ -99,7 +137,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         try {
             Category saved = categoryRepository.save(category);
-            return toResponse(saved);
+            eventPublisher.publishEvent(new CategoryChangeEvent(saved.getId(), CategoryChangeEvent.CREATED));
+            return toResponseWithChildren(saved);
         } catch (DataIntegrityViolationException e) {
             throw new CategoryServiceException("Category name already exists: " + request.getName(), e);
         }
@@ -109,12 +148,26 @@ public class CategoryServiceImpl implements CategoryService {
     public CategoryResponse getCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new CategoryServiceException("Category not found: " + id));
-        return toResponse(category);
+        return toResponseWithChildren(category);
+    }
+
+    @Override
+    public List<CategoryResponse> getCategories(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new CategoryServiceException("Too many ids in one batch lookup (max " + MAX_BATCH_SIZE + ")");
+        }
+
+        // Unknown ids are simply left out; callers decide how to render a missing category
+        return toResponses(categoryRepository.findAllById(new LinkedHashSet<>(ids)));
     }
 
     @Override
     public Page<CategoryResponse> listCategories(Pageable pageable) {
-        return categoryRepository.findAll(pageable).map(this::toResponse);
+        Page<Category> page = categoryRepository.findAll(pageable);
+        return new PageImpl<>(toResponses(page.getContent()), pageable, page.getTotalElements());
     }
 
     @Override
@@ -130,12 +183,14 @@ public class CategoryServiceImpl implements CategoryService {
 
         copy(request, category);
 
+        Category saved;
         try {
-            Category saved = categoryRepository.save(category);
-            return toResponse(saved);
+            saved = categoryRepository.save(category);
         } catch (DataIntegrityViolationException e) {
             throw new CategoryServiceException("Failed to update category: " + request.getName(), e);
         }
+        eventPublisher.publishEvent(new CategoryChangeEvent(id, CategoryChangeEvent.UPDATED));
+        return toResponseWithChildren(saved);
     }
 
     @Override
@@ -144,34 +199,81 @@ public class CategoryServiceImpl implements CategoryService {
             throw new CategoryServiceException("Category not found: " + id);
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangeEvent(id, CategoryChangeEvent.DELETED));
     }
 
     // ----------------- Extended Methods -----------------
 
     @Override
     public List<CategoryResponse> listActiveCategories() {
-        return categoryRepository.findByActiveTrue()
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(categoryRepository.findByActiveTrue());
     }
 
     @Override
     public List<CategoryResponse> listFeaturedCategories() {
-        return categoryRepository.findByFeaturedTrueAndActiveTrue()
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(categoryRepository.findByFeaturedTrueAndActiveTrue());
     }
 
     @Override
     public List<CategoryResponse> listSubcategories(Long parentId) {
-        Category parent = categoryRepository.findById(parentId)
-                .orElseThrow(() -> new CategoryServiceException("Parent category not found: " + parentId));
+        requireInTree(parentId, "Parent category not found: ");
 
-        return parent.getChildren()
+        // child ids come from the tree, the rows from one IN query
+        List<Long> childIds = categoryTree.childIds(parentId);
+        Map<Long, Category> byId = categoryRepository.findAllById(childIds)
                 .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        return toResponses(childIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    // ----------------- Hierarchy -----------------
+
+    @Override
+    public List<CategoryNodeResponse> getCategoryTree() {
+        return categoryTree.roots();
+    }
+
+    @Override
+    public List<CategoryNodeResponse> getDescendants(Long id) {
+        requireInTree(id, "Category not found: ");
+        return categoryTree.descendants(id);
+    }
+
+    @Override
+    public List<Long> getDescendantIds(Long id, boolean includeSelf) {
+        requireInTree(id, "Category not found: ");
+        return categoryTree.descendantIds(id, includeSelf);
+    }
+
+    // The tree may trail writes made by another instance; confirm against the table before failing
+    private void requireInTree(Long id, String notFoundMessage) {
+        if (categoryTree.contains(id)) {
+            return;
+        }
+        if (!categoryRepository.existsById(id)) {
+            throw new CategoryServiceException(notFoundMessage + id);
+        }
+        categoryTree.rebuild();
+    }
+
+    // ----------------- Versions -----------------
+
+    @Override
+    public String getCategoryVersion(Long id) {
+        CategoryRepository.VersionStamp stamp = categoryRepository.findVersionWithChildren(id);
+        if (stamp.getCount() == 0) {
+            return null;
+        }
+        return "c" + id + "-" + stamp.getCount() + "-" + stamp.getLastUpdated().toEpochMilli();
+    }
+
+    @Override
+    public String getCatalogVersion() {
+        CategoryRepository.VersionStamp stamp = categoryRepository.findCatalogVersion();
+        long lastUpdated = stamp.getLastUpdated() != null ? stamp.getLastUpdated().toEpochMilli() : 0L;
+        return "all-" + stamp.getCount() + "-" + lastUpdated;
     }
 }
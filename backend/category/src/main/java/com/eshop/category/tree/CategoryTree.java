@@ -0,0 +1,225 @@
+package com.eshop.category.tree;
+
+import com.eshop.category.payload.CategoryChangeEvent;
+import com.eshop.category.payload.CategoryNodeResponse;
+import com.eshop.category.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * In-memory copy of the whole category hierarchy, rebuilt from one query after every write.
+ * <p>
+ * Categories are laid out in preorder, so the descendants of a category are the contiguous
+ * range after its own position: a subtree lookup is two array indexes, independent of depth.
+ * Each rebuild swaps in a new immutable {@link Snapshot}; readers never lock.
+ */
+@Component
+public class CategoryTree {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTree.class);
+
+    private final CategoryRepository categoryRepository;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile String builtFromVersion;
+
+    public CategoryTree(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // after commit when the write ran in a transaction, right away otherwise
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangeEvent event) {
+        rebuild();
+    }
+
+    /** Picks up writes made by other instances; one count/max query per interval. */
+    @Scheduled(fixedDelayString = "${category.tree.check-interval-ms:30000}")
+    public void rebuildIfChanged() {
+        if (!catalogVersion().equals(builtFromVersion)) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        String version = catalogVersion();
+        snapshot = Snapshot.build(categoryRepository.findTreeRows());
+        builtFromVersion = version;
+        log.debug("Category tree rebuilt with {} categories", snapshot.preorderIds.size());
+    }
+
+    public boolean contains(Long id) {
+        return snapshot.positions.containsKey(id);
+    }
+
+    /** Root categories with their children nested all the way down. */
+    public List<CategoryNodeResponse> roots() {
+        return snapshot.nestedRoots;
+    }
+
+    /** Ids of the direct children of a category, in id order. */
+    public List<Long> childIds(Long id) {
+        Snapshot current = snapshot;
+        Integer position = current.positions.get(id);
+        return position != null ? current.children.get(position) : List.of();
+    }
+
+    /** Ids of every category below {@code id}, optionally with {@code id} first; empty if unknown. */
+    public List<Long> descendantIds(Long id, boolean includeSelf) {
+        Snapshot current = snapshot;
+        Integer position = current.positions.get(id);
+        if (position == null) {
+            return List.of();
+        }
+        int from = includeSelf ? position : position + 1;
+        return current.preorderIds.subList(from, current.subtreeEnd[position]);
+    }
+
+    /** Every category below {@code id} in preorder (parents before their children), without nesting. */
+    public List<CategoryNodeResponse> descendants(Long id) {
+        Snapshot current = snapshot;
+        Integer position = current.positions.get(id);
+        if (position == null) {
+            return List.of();
+        }
+        return current.flatNodes.subList(position + 1, current.subtreeEnd[position]);
+    }
+
+    private String catalogVersion() {
+        CategoryRepository.VersionStamp stamp = categoryRepository.findCatalogVersion();
+        return stamp.getCount() + "-" + (stamp.getLastUpdated() != null ? stamp.getLastUpdated().toEpochMilli() : 0L);
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = build(List.of());
+
+        // id -> preorder position
+        final Map<Long, Integer> positions = new HashMap<>();
+        List<Long> preorderIds;
+        // exclusive end of each position's subtree range
+        int[] subtreeEnd;
+        List<List<Long>> children;
+        List<CategoryNodeResponse> flatNodes;
+        List<CategoryNodeResponse> nestedRoots;
+
+        static Snapshot build(List<CategoryRepository.TreeRow> rows) {
+            Map<Long, List<CategoryRepository.TreeRow>> byParent = new HashMap<>();
+            Set<Long> ids = new HashSet<>();
+            rows.forEach(row -> ids.add(row.getId()));
+            List<CategoryRepository.TreeRow> roots = new ArrayList<>();
+            for (CategoryRepository.TreeRow row : rows) {
+                // a dangling parent reference makes the row a root rather than dropping it
+                if (row.getParentId() == null || !ids.contains(row.getParentId())) {
+                    roots.add(row);
+                } else {
+                    byParent.computeIfAbsent(row.getParentId(), k -> new ArrayList<>()).add(row);
+                }
+            }
+
+            Snapshot s = new Snapshot();
+            int n = rows.size();
+            s.subtreeEnd = new int[n];
+            Long[] orderedIds = new Long[n];
+            CategoryNodeResponse[] flat = new CategoryNodeResponse[n];
+            List<List<Long>> children = new ArrayList<>(Collections.nCopies(n, List.<Long>of()));
+
+            // iterative DFS: deep hierarchies must not overflow the stack
+            int next = 0;
+            Deque<Object[]> stack = new ArrayDeque<>();
+            for (int r = roots.size() - 1; r >= 0; r--) {
+                stack.push(new Object[]{roots.get(r), 0});
+            }
+            Deque<Integer> open = new ArrayDeque<>();
+            Deque<Integer> openDepth = new ArrayDeque<>();
+            while (!stack.isEmpty()) {
+                Object[] frame = stack.pop();
+                CategoryRepository.TreeRow row = (CategoryRepository.TreeRow) frame[0];
+                int depth = (Integer) frame[1];
+                // close every open subtree at the same or a deeper level
+                while (!openDepth.isEmpty() && openDepth.peek() >= depth) {
+                    openDepth.pop();
+                    s.subtreeEnd[open.pop()] = next;
+                }
+                int position = next++;
+                orderedIds[position] = row.getId();
+                s.positions.put(row.getId(), position);
+                flat[position] = node(row, depth);
+                open.push(position);
+                openDepth.push(depth);
+
+                List<CategoryRepository.TreeRow> kids = byParent.getOrDefault(row.getId(), List.of());
+                List<Long> kidIds = new ArrayList<>(kids.size());
+                for (int k = kids.size() - 1; k >= 0; k--) {
+                    stack.push(new Object[]{kids.get(k), depth + 1});
+                }
+                kids.forEach(kid -> kidIds.add(kid.getId()));
+                children.set(position, List.copyOf(kidIds));
+            }
+            while (!open.isEmpty()) {
+                s.subtreeEnd[open.pop()] = next;
+            }
+            // rows on a parent cycle are unreachable from any root and left out (next < n)
+            s.preorderIds = List.of(Arrays.copyOf(orderedIds, next));
+            s.flatNodes = List.of(Arrays.copyOf(flat, next));
+            s.children = children;
+            s.nestedRoots = nest(s);
+            return s;
+        }
+
+        private static List<CategoryNodeResponse> nest(Snapshot s) {
+            Map<Long, CategoryNodeResponse> nested = new HashMap<>();
+            List<CategoryNodeResponse> result = new ArrayList<>();
+            // preorder guarantees a parent is created before its children
+            for (CategoryNodeResponse flat : s.flatNodes) {
+                CategoryNodeResponse copy = copyOf(flat);
+                copy.setChildren(new ArrayList<>());
+                nested.put(copy.getId(), copy);
+                CategoryNodeResponse parent = flat.getDepth() > 0 ? nested.get(flat.getParentId()) : null;
+                if (parent != null) {
+                    parent.getChildren().add(copy);
+                } else {
+                    result.add(copy);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        private static CategoryNodeResponse node(CategoryRepository.TreeRow row, int depth) {
+            CategoryNodeResponse node = new CategoryNodeResponse();
+            node.setId(row.getId());
+            node.setParentId(row.getParentId());
+            node.setName(row.getName());
+            node.setSlug(row.getSlug());
+            node.setImageUrl(row.getImageUrl());
+            node.setActive(row.getActive());
+            node.setFeatured(row.getFeatured());
+            node.setDepth(depth);
+            return node;
+        }
+
+        private static CategoryNodeResponse copyOf(CategoryNodeResponse source) {
+            CategoryNodeResponse copy = new CategoryNodeResponse();
+            copy.setId(source.getId());
+            copy.setParentId(source.getParentId());
+            copy.setName(source.getName());
+            copy.setSlug(source.getSlug());
+            copy.setImageUrl(source.getImageUrl());
+            copy.setActive(source.getActive());
+            copy.setFeatured(source.getFeatured());
+            copy.setDepth(source.getDepth());
+            return copy;
+        }
+    }
+}
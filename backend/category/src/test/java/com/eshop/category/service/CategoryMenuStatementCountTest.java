@@ -0,0 +1,122 @@
+package com.eshop.category.service;
+
+import com.eshop.category.TestcontainersConfiguration;
+import com.eshop.category.entity.Category;
+import com.eshop.category.payload.CategoryResponse;
+import com.eshop.category.repository.CategoryRepository;
+import com.eshop.category.service.Impl.CategoryServiceImpl;
+import com.eshop.category.tree.CategoryTree;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The homepage menu (featured / active categories with their subcategories) and paged
+ * listings must cost the same number of statements whatever the number of categories.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, CategoryServiceImpl.class, CategoryTree.class})
+@Testcontainers(disabledWithoutDocker = true)
+class CategoryMenuStatementCountTest {
+
+	private static final int CHILDREN_PER_PARENT = 3;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private int seeded;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void featuredMenuIsTwoStatementsForAnyNumberOfCategories() {
+		seedParents(4);
+		long small = statementsFor(categoryService::listFeaturedCategories, 4);
+		seedParents(40);
+		long large = statementsFor(categoryService::listFeaturedCategories, 44);
+
+		// the categories, then all their children in one IN query
+		assertThat(small).isEqualTo(2);
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void activeMenuIsTwoStatementsForAnyNumberOfCategories() {
+		seedParents(4);
+		long small = statementsFor(categoryService::listActiveCategories, 4 * (1 + CHILDREN_PER_PARENT));
+		seedParents(40);
+		long large = statementsFor(categoryService::listActiveCategories, 44 * (1 + CHILDREN_PER_PARENT));
+
+		assertThat(small).isEqualTo(2);
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void pagedListingIsConstantPerPage() {
+		seedParents(40);
+		long statements = statementsFor(() -> categoryService.listCategories(PageRequest.of(0, 50)).getContent(), 50);
+
+		// page, count, children
+		assertThat(statements).isEqualTo(3);
+	}
+
+	private void seedParents(int count) {
+		for (int p = 0; p < count; p++) {
+			Category parent = category("parent", null);
+			parent.setFeatured(true);
+			categoryRepository.save(parent);
+			for (int c = 0; c < CHILDREN_PER_PARENT; c++) {
+				categoryRepository.save(category("child", parent));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private Category category(String prefix, Category parent) {
+		int n = ++seeded;
+		Category category = new Category(prefix + "-" + n, null, "http://img/" + n + ".jpg", parent);
+		category.setSlug(prefix + "-" + n);
+		return category;
+	}
+
+	private long statementsFor(Supplier<List<CategoryResponse>> listing, int expectedSize) {
+		entityManager.clear();
+		statistics.clear();
+		List<CategoryResponse> categories = listing.get();
+		assertThat(categories).hasSize(expectedSize);
+		categories.stream()
+				.filter(category -> category.getParentId() == null)
+				.forEach(parent -> assertThat(parent.getChildren()).hasSize(CHILDREN_PER_PARENT));
+		return statistics.getPrepareStatementCount();
+	}
+}
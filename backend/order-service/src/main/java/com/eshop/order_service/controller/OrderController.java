@@ -1,20 +1,32 @@
 package com.eshop.order_service.controller;
 
+import com.eshop.order_service.payload.OrderDailySummaryResponse;
+import com.eshop.order_service.payload.OrderLinesResponse;
 import com.eshop.order_service.payload.OrderRequest;
 import com.eshop.order_service.payload.OrderResponse;
+import com.eshop.order_service.payload.OrderSearchResponse;
 import com.eshop.order_service.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
+    private static final int MAX_LINES_PAGE = 200;
+    private static final int MAX_SEARCH_PAGE = 200;
+
     private final OrderService orderService;
 
     public OrderController(OrderService orderService) {
@@ -22,11 +34,14 @@ public class OrderController {
     }
 
     @PostMapping("/placed")
-    public ResponseEntity<Long> placeOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<Long> placeOrder(@RequestBody OrderRequest orderRequest,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("placeOrder payload: {}", orderRequest);
 
-        Long orderId = orderService.placeOrder(orderRequest);
-        return new ResponseEntity<>(orderId, HttpStatus.CREATED);
+        // stock and payment are processed asynchronously; poll GET /{id} for the outcome.
+        // A retry with the same Idempotency-Key gets the same order id back without placing a new order.
+        Long orderId = orderService.placeOrder(orderRequest, idempotencyKey);
+        return new ResponseEntity<>(orderId, HttpStatus.ACCEPTED);
     }
 
     @GetMapping("/{id}")
@@ -35,6 +50,37 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrder(id));
     }
 
+    // Order history / ops search, newest first; pass nextCursor back as cursor for the next page
+    @GetMapping
+    public ResponseEntity<OrderSearchResponse> searchOrders(@RequestParam(value = "status", required = false) String status,
+                                                            @RequestParam(value = "from", required = false) Instant from,
+                                                            @RequestParam(value = "to", required = false) Instant to,
+                                                            @RequestParam(value = "productId", required = false) Long productId,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return ResponseEntity.ok(orderService.searchOrders(status, from, to, productId, cursor,
+                Math.min(Math.max(limit, 1), MAX_SEARCH_PAGE)));
+    }
+
+    // Orders and amount per UTC day and status, inclusive range; defaults to the last 30 days
+    @GetMapping("/summary")
+    public ResponseEntity<List<OrderDailySummaryResponse>> summary(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "status", required = false) String status) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(orderService.getDailySummary(start, end, status));
+    }
+
+    // Lines of a large order in pages of `limit`, resuming after line number `afterLine`
+    @GetMapping("/{id}/items")
+    public ResponseEntity<OrderLinesResponse> getOrderLines(@PathVariable Long id,
+                                                            @RequestParam(value = "afterLine", defaultValue = "0") int afterLine,
+                                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return ResponseEntity.ok(orderService.getOrderLines(id, Math.max(afterLine, 0), Math.min(Math.max(limit, 1), MAX_LINES_PAGE)));
+    }
+
     @GetMapping("/ping")
     public ResponseEntity<String> ping() {
         return ResponseEntity.ok("orders ok");
@@ -0,0 +1,37 @@
+package com.eshop.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * The order created for an Idempotency-Key. Inserted in the transaction that creates the order,
+ * so a key never exists without its order and vice versa.
+ */
+@Entity
+@Table(name = "order_idempotency", indexes = @Index(name = "idx_order_idempotency_expires", columnList = "expires_at"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body; the same key with a different body is rejected
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -3,15 +3,23 @@ package com.eshop.order_service.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // keyset order of every listing is (orderDate desc, orderId desc)
+        @Index(name = "idx_orders_date", columnList = "orderDate, orderId"),
+        @Index(name = "idx_orders_status_date", columnList = "orderStatus, orderDate, orderId")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -20,14 +28,20 @@ public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long orderId;
-    private Long productId;
-    private Long quantity;
+    private Long productId;   // first line's product, kept as a summary
+    private Long quantity;    // sum over all lines
     @CreationTimestamp
     private Instant orderDate;
     private String orderStatus;
     @Column(nullable = false)
     private Long amount;
 
+    @OneToMany(mappedBy = "order")
+    @OrderBy("lineNo")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<OrderItem> items = new ArrayList<>();
+
     public Long getOrderId() {
         return orderId;
     }
@@ -75,4 +89,12 @@ public class Order {
     public void setAmount(Long amount) {
         this.amount = amount;
     }
+
+    public List<OrderItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.eshop.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Orders per (UTC day of order date, current status), split over {@code stripe} rows so that
+ * concurrent checkouts of the same day do not all update one row. A bucket is the sum of its
+ * stripes; a single stripe may go negative. Kept up to date by {@code OrderRollup} on every
+ * status change, so summaries never scan the orders table.
+ */
+@Entity
+@Table(name = "order_rollup_stripes")
+@IdClass(OrderDailyRollup.Key.class)
+@NoArgsConstructor
+@Getter
+@Setter
+public class OrderDailyRollup {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Id
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Id
+    @Column(nullable = false)
+    private int stripe;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long amountSum;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private String status;
+        private int stripe;
+    }
+}
@@ -0,0 +1,47 @@
+package com.eshop.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of an order. Rows are written by {@code OrderItemJdbcRepository} in a single JDBC
+ * batch; JPA is only used to read them.
+ */
+@Entity
+@Table(name = "order_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_items_order_line", columnNames = {"order_id", "line_no"}),
+        indexes = @Index(name = "idx_order_items_product", columnList = "product_id, order_id"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class OrderItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @Column(name = "line_no", nullable = false)
+    private Integer lineNo;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private String productName;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal lineTotal;
+}
@@ -0,0 +1,26 @@
+package com.eshop.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Marker row ({@code id = 1}) written by the one backfill of {@link OrderDailyRollup}; its
+ * presence means the rollup covers every order and only needs the per-change deltas.
+ */
+@Entity
+@Table(name = "order_rollup_state")
+@NoArgsConstructor
+@Getter
+@Setter
+public class OrderRollupState {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Instant backfilledAt;
+}
@@ -0,0 +1,81 @@
+package com.eshop.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One pending step of an order saga. Written in the same transaction as the order change that
+ * caused it and picked up by {@code OutboxDispatcher} (or any external poller) with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED}.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_order_outbox_order", columnList = "order_id")
+})
+@NoArgsConstructor
+@Getter
+@Setter
+public class OutboxEvent {
+
+    // event types
+    public static final String RESERVE_STOCK = "RESERVE_STOCK";
+    public static final String CHARGE_PAYMENT = "CHARGE_PAYMENT";
+    public static final String RELEASE_STOCK = "RELEASE_STOCK";
+    public static final String VOID_PAYMENT = "VOID_PAYMENT";
+
+    // statuses
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // steps that undo earlier ones; they get many more attempts before a human has to step in
+    public static boolean isCompensation(String eventType) {
+        return RELEASE_STOCK.equals(eventType) || VOID_PAYMENT.equals(eventType);
+    }
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false, length = 32)
+    private String eventType;
+
+    // JSON: the order lines, amount and payment method the step needs
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(length = 512)
+    private String lastError;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant processedAt;
+
+    public OutboxEvent(Long orderId, String eventType, String payload, Instant now) {
+        this.orderId = orderId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.status = PENDING;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+}
@@ -1,12 +1,19 @@
 package com.eshop.order_service.external.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
 @FeignClient(name = "PAYMENT-SERVICE", path = "/api/payments")
 public interface PaymentClient {
 
+    // payment-service charges an order once; a repeat for the same orderId returns the same transaction id
     @PostMapping("/do-payment")
     Long doPayment(@RequestBody PaymentRequestForPaymentService paymentRequest);
+
+    // voids the order's payment, or pre-empts a charge that has not landed yet; repeatable
+    @PostMapping("/orders/{orderId}/void")
+    ResponseEntity<Void> voidPayment(@PathVariable("orderId") Long orderId);
 }
\ No newline at end of file
@@ -5,10 +5,26 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
+// orderId is the dedupe key: product-service applies each line at most once per order, so a
+// saga step that runs twice (lease expired mid-call) does not take or give back stock twice
 @FeignClient(name = "PRODUCT-SERVICE", path = "/api/products")
 public interface ProductService {
 
     @PutMapping("/reduce-quantity")
-    ResponseEntity<Void> reduceQuantity(@RequestBody ReduceQuantityRequest request);
+    ResponseEntity<Void> reduceQuantity(@RequestBody ReduceQuantityRequest request, @RequestParam("orderId") Long orderId);
+
+    // all lines in one call / one transaction on the product side
+    @PutMapping("/reduce-quantity/batch")
+    ResponseEntity<Void> reduceQuantities(@RequestBody List<ReduceQuantityRequest> requests, @RequestParam("orderId") Long orderId);
+
+    // compensation for a line taken by reduceQuantity
+    @PutMapping("/restore-quantity")
+    ResponseEntity<Void> restoreQuantity(@RequestBody ReduceQuantityRequest request, @RequestParam("orderId") Long orderId);
+
+    @PutMapping("/restore-quantity/batch")
+    ResponseEntity<Void> restoreQuantities(@RequestBody List<ReduceQuantityRequest> requests, @RequestParam("orderId") Long orderId);
 }
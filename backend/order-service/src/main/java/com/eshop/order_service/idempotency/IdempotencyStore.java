@@ -0,0 +1,202 @@
+package com.eshop.order_service.idempotency;
+
+import com.eshop.order_service.entity.IdempotencyRecord;
+import com.eshop.order_service.exception.CustomException;
+import com.eshop.order_service.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an order placement at most once per Idempotency-Key.
+ * <p>
+ * Lookups go through a bounded in-memory LRU, then the order_idempotency table. Concurrent
+ * requests with the same key on this instance share one execution: the first runs, the others
+ * wait for its result. Across instances the key's primary key decides; the loser's transaction
+ * (order included) rolls back and it answers with the winner's order instead.
+ * <p>
+ * Keys expire after {@code order.idempotency.ttl}; expired rows are deleted periodically.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final long waitMillis;
+    private final Map<String, Entry> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            ObjectMapper objectMapper,
+                            @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${order.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${order.idempotency.wait-ms:30000}") long waitMillis) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitMillis = waitMillis;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /** SHA-256 of the request as JSON; identifies "the same request" for a key. */
+    public String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    /**
+     * The order id stored for {@code key}, or the result of {@code placement} when the key is new.
+     * {@code placement} must call {@link #record} inside the transaction that creates the order.
+     */
+    public Long execute(String key, String fingerprint, Supplier<Long> placement) {
+        validate(key);
+        Entry known = lookup(key);
+        if (known != null) {
+            return known.orderIdFor(fingerprint);
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running).orderIdFor(fingerprint);
+        }
+        try {
+            Entry entry = lookup(key); // another request may have finished between the lookup and the claim
+            if (entry == null) {
+                entry = place(key, fingerprint, placement);
+            }
+            mine.complete(entry);
+            return entry.orderIdFor(fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Store the key for a new order; call inside the order's transaction. */
+    public void record(String key, String fingerprint, Long orderId) {
+        Instant now = Instant.now();
+        repository.deleteIfExpired(key, now);
+        repository.insert(key, fingerprint, orderId, now, now.plus(ttl));
+    }
+
+    private Entry place(String key, String fingerprint, Supplier<Long> placement) {
+        Long orderId;
+        try {
+            orderId = placement.get();
+        } catch (DataIntegrityViolationException e) {
+            // another instance stored the key first; its order stands and ours was rolled back
+            Entry winner = load(key);
+            if (winner == null) {
+                throw e;
+            }
+            return winner;
+        }
+        Entry entry = new Entry(fingerprint, orderId, Instant.now().plus(ttl));
+        remember(key, entry);
+        return entry;
+    }
+
+    private Entry lookup(String key) {
+        Entry entry;
+        synchronized (recent) {
+            entry = recent.get(key);
+        }
+        if (entry != null && entry.expiresAt.isAfter(Instant.now())) {
+            return entry;
+        }
+        return load(key);
+    }
+
+    private Entry load(String key) {
+        IdempotencyRecord row = repository.findById(key).orElse(null);
+        if (row == null || !row.getExpiresAt().isAfter(Instant.now())) {
+            return null;
+        }
+        Entry entry = new Entry(row.getRequestHash(), row.getOrderId(), row.getExpiresAt());
+        remember(key, entry);
+        return entry;
+    }
+
+    private void remember(String key, Entry entry) {
+        synchronized (recent) {
+            recent.put(key, entry);
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // same key, same outcome: a duplicate of a rejected request is rejected the same way
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new CustomException("A request with this Idempotency-Key is still in progress", "IDEMPOTENCY_IN_PROGRESS", 409);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting for the original request", "IDEMPOTENCY_IN_PROGRESS", 409);
+        }
+    }
+
+    private static void validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new CustomException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters", "INVALID_IDEMPOTENCY_KEY", 400);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        Instant now = Instant.now();
+        synchronized (recent) {
+            recent.values().removeIf(entry -> !entry.expiresAt.isAfter(now));
+        }
+        int deleted = repository.deleteExpired(now);
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency key(s)", deleted);
+        }
+    }
+
+    private record Entry(String fingerprint, Long orderId, Instant expiresAt) {
+
+        Long orderIdFor(String requestFingerprint) {
+            if (!fingerprint.equals(requestFingerprint)) {
+                throw new CustomException("Idempotency-Key was already used for a different request",
+                        "IDEMPOTENCY_KEY_REUSED", 422);
+            }
+            return orderId;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.eshop.order_service.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// Orders of one UTC day currently in one status
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class OrderDailySummaryResponse {
+    private LocalDate day;
+    private String status;
+    private long orderCount;
+    private long totalAmount;
+}
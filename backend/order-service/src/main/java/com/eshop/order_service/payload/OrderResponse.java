@@ -2,6 +2,8 @@
 package com.eshop.order_service.payload;
 
 import lombok.*;
+
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 
@@ -12,7 +14,7 @@ public class OrderResponse {
     private String status;
     private Instant orderDate;
 
-    // best-effort single-line summary since you don't persist items yet
+    // one entry per order_items row; orders placed before order_items existed get a single derived line
     private List<OrderLine> items;
 
     public Long getOrderId() {
@@ -57,9 +59,36 @@ public class OrderResponse {
 
     @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
     public static class OrderLine {
+        private Integer lineNo;
         private Long productId;
+        private String productName;
         private Long quantity;
-        private Long unitPrice;   // derived = totalAmount / quantity (rounded)
+        private BigDecimal unitPrice;
+        private BigDecimal lineTotal;
+
+        public Integer getLineNo() {
+            return lineNo;
+        }
+
+        public void setLineNo(Integer lineNo) {
+            this.lineNo = lineNo;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public void setProductName(String productName) {
+            this.productName = productName;
+        }
+
+        public BigDecimal getLineTotal() {
+            return lineTotal;
+        }
+
+        public void setLineTotal(BigDecimal lineTotal) {
+            this.lineTotal = lineTotal;
+        }
 
         public Long getProductId() {
             return productId;
@@ -77,11 +106,11 @@ public class OrderResponse {
             this.quantity = quantity;
         }
 
-        public Long getUnitPrice() {
+        public BigDecimal getUnitPrice() {
             return unitPrice;
         }
 
-        public void setUnitPrice(Long unitPrice) {
+        public void setUnitPrice(BigDecimal unitPrice) {
             this.unitPrice = unitPrice;
         }
     }
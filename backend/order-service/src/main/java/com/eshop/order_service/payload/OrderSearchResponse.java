@@ -0,0 +1,16 @@
+package com.eshop.order_service.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class OrderSearchResponse {
+    private List<OrderSummaryResponse> content;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+    private int limit;
+}
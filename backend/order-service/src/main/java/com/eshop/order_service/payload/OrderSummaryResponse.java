@@ -0,0 +1,18 @@
+package com.eshop.order_service.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// One order in a listing: header fields only, lines via GET /api/orders/{id}/items
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long orderId;
+    private Instant orderDate;
+    private String status;
+    private Long totalAmount;
+    private Long quantity;
+}
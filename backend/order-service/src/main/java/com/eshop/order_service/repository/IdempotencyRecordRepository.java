@@ -0,0 +1,32 @@
+package com.eshop.order_service.repository;
+
+import com.eshop.order_service.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Plain INSERT (save() would merge): a concurrent insert of the same key fails on the primary key
+    @Modifying
+    @Query(value = "insert into order_idempotency (idempotency_key, request_hash, order_id, created_at, expires_at) " +
+            "values (:key, :hash, :orderId, :now, :expiresAt)", nativeQuery = true)
+    int insert(@Param("key") String key,
+               @Param("hash") String hash,
+               @Param("orderId") Long orderId,
+               @Param("now") Instant now,
+               @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
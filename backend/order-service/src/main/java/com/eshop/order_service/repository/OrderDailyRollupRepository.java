@@ -0,0 +1,54 @@
+package com.eshop.order_service.repository;
+
+import com.eshop.order_service.entity.OrderDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OrderDailyRollupRepository extends JpaRepository<OrderDailyRollup, OrderDailyRollup.Key> {
+
+    // Adds (or with negative values, subtracts) orders to one stripe of a (day, status) bucket
+    @Modifying
+    @Query(value = "insert into order_rollup_stripes (day, status, stripe, order_count, amount_sum) "
+            + "values (:day, :status, :stripe, :count, :amount) "
+            + "on duplicate key update order_count = order_count + :count, amount_sum = amount_sum + :amount", nativeQuery = true)
+    void add(@Param("day") LocalDate day,
+             @Param("status") String status,
+             @Param("stripe") int stripe,
+             @Param("count") long count,
+             @Param("amount") long amount);
+
+    // Primary key range scan; the stripes of a bucket are adjacent and summed here
+    @Query("select r.day as day, r.status as status, sum(r.orderCount) as orderCount, sum(r.amountSum) as amountSum " +
+            "from OrderDailyRollup r where r.day >= :from and r.day <= :to " +
+            "and (:status is null or r.status = :status) " +
+            "group by r.day, r.status having sum(r.orderCount) <> 0 order by r.day, r.status")
+    List<DailyTotal> findRange(@Param("from") LocalDate from,
+                               @Param("to") LocalDate to,
+                               @Param("status") String status);
+
+    /**
+     * Claim the one-time backfill. Returns 0 when it is already done; while another instance's
+     * backfill is still running this waits on its row lock and then returns 0 too, or 1 if that
+     * backfill rolled back.
+     */
+    @Modifying
+    @Query(value = "insert ignore into order_rollup_state (id, backfilled_at) values (1, :now)", nativeQuery = true)
+    int claimBackfill(@Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "delete from order_rollup_stripes", nativeQuery = true)
+    int deleteAllStripes();
+
+    interface DailyTotal {
+        LocalDate getDay();
+        String getStatus();
+        Long getOrderCount();
+        Long getAmountSum();
+    }
+}
@@ -0,0 +1,37 @@
+package com.eshop.order_service.repository;
+
+import com.eshop.order_service.entity.OrderItem;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Inserts all lines of an order as one JDBC batch. With IDENTITY keys Hibernate would issue one
+ * INSERT per line; with rewriteBatchedStatements the driver sends a single multi-row INSERT.
+ */
+@Repository
+public class OrderItemJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "insert into order_items (order_id, line_no, product_id, product_name, quantity, unit_price, line_total) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(Long orderId, List<OrderItem> items) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, items.size(), (ps, item) -> {
+            ps.setLong(1, orderId);
+            ps.setInt(2, item.getLineNo());
+            ps.setLong(3, item.getProductId());
+            ps.setString(4, item.getProductName());
+            ps.setLong(5, item.getQuantity());
+            ps.setBigDecimal(6, item.getUnitPrice());
+            ps.setBigDecimal(7, item.getLineTotal());
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package com.eshop.order_service.repository;
+
+import com.eshop.order_service.entity.OrderItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Keyset page over the lines of one order (uk_order_items_order_line covers it)
+    @Query("select i from OrderItem i where i.order.orderId = :orderId and i.lineNo > :afterLine order by i.lineNo")
+    List<OrderItem> findLines(@Param("orderId") Long orderId, @Param("afterLine") int afterLine, Limit limit);
+}
@@ -1,13 +1,75 @@
 package com.eshop.order_service.repository;
 
-import aj.org.objectweb.asm.commons.Remapper;
 import com.eshop.order_service.entity.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order,Long> {
 
+    // Order and all of its lines in one statement
+    @Query("select o from Order o left join fetch o.items where o.orderId = :orderId")
+    Optional<Order> findWithItemsById(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("update Order o set o.orderStatus = :status where o.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") String status);
+
+    // Current status of an order, locked until the caller's transaction ends (see OrderRollup)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.orderStatus as status, o.orderDate as orderDate, o.amount as amount from Order o where o.orderId = :orderId")
+    Optional<StatusRow> lockStatus(@Param("orderId") Long orderId);
+
+    // Share-locks every order and the gap after the last one: status changes and new orders wait
+    // until the caller's transaction ends (used by the one-time rollup backfill)
+    @Query(value = "select count(*) from orders force index (primary) for share", nativeQuery = true)
+    long lockAllForShare();
+
+    // Every order's rollup inputs, for the one-time rollup backfill
+    @Query("select o.orderStatus as status, o.orderDate as orderDate, o.amount as amount from Order o where o.orderStatus is not null")
+    Stream<StatusRow> streamStatusRows();
+
+    interface StatusRow {
+        String getStatus();
+        Instant getOrderDate();
+        Long getAmount();
+    }
+
+    /*
+     * Keyset page of orders, newest first. Null filters are bound as literals and folded away by
+     * MySQL, so a status filter walks idx_orders_status_date and the rest idx_orders_date; the
+     * product filter probes idx_order_items_product per candidate order.
+     */
+    @Query("select o.orderId as orderId, o.orderDate as orderDate, o.orderStatus as status, " +
+            "o.amount as amount, o.quantity as quantity from Order o " +
+            "where (:status is null or o.orderStatus = :status) " +
+            "and (:from is null or o.orderDate >= :from) " +
+            "and (:to is null or o.orderDate < :to) " +
+            "and (:productId is null or exists (select 1 from OrderItem i where i.order.orderId = o.orderId and i.productId = :productId)) " +
+            "and (:afterDate is null or o.orderDate < :afterDate or (o.orderDate = :afterDate and o.orderId < :afterId)) " +
+            "order by o.orderDate desc, o.orderId desc")
+    List<OrderRow> search(@Param("status") String status,
+                          @Param("from") Instant from,
+                          @Param("to") Instant to,
+                          @Param("productId") Long productId,
+                          @Param("afterDate") Instant afterDate,
+                          @Param("afterId") Long afterId,
+                          Limit limit);
+
+    interface OrderRow {
+        Long getOrderId();
+        Instant getOrderDate();
+        String getStatus();
+        Long getAmount();
+        Long getQuantity();
+    }
 }
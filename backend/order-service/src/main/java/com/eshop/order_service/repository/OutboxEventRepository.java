@@ -0,0 +1,34 @@
+package com.eshop.order_service.repository;
+
+import com.eshop.order_service.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Due events not held by another poller; call inside a transaction and lease them before it commits
+    @Query(value = "select * from order_outbox where status = 'PENDING' and next_attempt_at <= :now " +
+            "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    // 1 for the run that settles the event, 0 for a duplicate run (its lease ran out and another worker took it)
+    @Modifying
+    @Query("update OutboxEvent e set e.status = :status, e.lastError = :error, e.processedAt = :now " +
+            "where e.id = :id and e.status = 'PENDING'")
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("error") String error, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.nextAttemptAt = :nextAttemptAt, e.lastError = :error where e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.status = 'DONE' and e.processedAt < :cutoff")
+    int deleteDoneBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,117 @@
+package com.eshop.order_service.rollup;
+
+import com.eshop.order_service.repository.OrderDailyRollupRepository;
+import com.eshop.order_service.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the order rollup in step with order statuses. Every status write goes through here,
+ * in the same transaction as the write: the order's own bucket is decremented and the new one
+ * incremented, so the rollup never needs a scan of the orders table.
+ * <p>
+ * Each (day, status) bucket is spread over {@code order.rollup.stripes} rows and every delta
+ * goes to a random one, so concurrent checkouts do not queue on today's CREATED row; readers
+ * sum the stripes.
+ */
+@Component
+@Slf4j
+public class OrderRollup {
+
+    private final OrderRepository orderRepository;
+    private final OrderDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripes;
+
+    public OrderRollup(OrderRepository orderRepository,
+                       OrderDailyRollupRepository rollupRepository,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${order.rollup.stripes:16}") int stripes) {
+        this.orderRepository = orderRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stripes = Math.max(1, stripes);
+    }
+
+    /** Count a newly inserted order. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(Instant orderDate, String status, Long amount) {
+        rollupRepository.add(day(orderDate), status, stripe(), 1, amount(amount));
+    }
+
+    /** Move an order to {@code status}; the row lock orders concurrent changes of the same order. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changeStatus(Long orderId, String status) {
+        OrderRepository.StatusRow current = orderRepository.lockStatus(orderId).orElse(null);
+        if (current == null || status.equals(current.getStatus())) {
+            return;
+        }
+        orderRepository.updateStatus(orderId, status);
+        LocalDate day = day(current.getOrderDate());
+        long amount = amount(current.getAmount());
+        int stripe = stripe();
+        if (current.getStatus() != null) {
+            rollupRepository.add(day, current.getStatus(), stripe, -1, -amount);
+        }
+        rollupRepository.add(day, status, stripe, 1, amount);
+    }
+
+    /**
+     * Once per database: rebuild the rollup from the orders placed so far. The marker row makes
+     * exactly one instance do it (the others wait on its row lock, then skip). The orders are
+     * share-locked first, so no order can change or be created while they are counted; deltas
+     * other instances wrote before that are already reflected in the orders and are replaced
+     * along with everything else.
+     */
+    @PostConstruct
+    public void backfillOnce() {
+        Integer buckets = transactionTemplate.execute(status -> {
+            if (rollupRepository.claimBackfill(Instant.now()) == 0) {
+                return null;
+            }
+            orderRepository.lockAllForShare();
+            rollupRepository.deleteAllStripes();
+            Map<BucketKey, long[]> totals = new HashMap<>();
+            try (Stream<OrderRepository.StatusRow> rows = orderRepository.streamStatusRows()) {
+                rows.forEach(row -> {
+                    long[] sums = totals.computeIfAbsent(new BucketKey(day(row.getOrderDate()), row.getStatus()), key -> new long[2]);
+                    sums[0]++;
+                    sums[1] += amount(row.getAmount());
+                });
+            }
+            totals.forEach((key, sums) -> rollupRepository.add(key.day(), key.status(), 0, sums[0], sums[1]));
+            return totals.size();
+        });
+        if (buckets != null) {
+            log.info("Backfilled the order rollup with {} (day, status) bucket(s)", buckets);
+        }
+    }
+
+    private int stripe() {
+        return ThreadLocalRandom.current().nextInt(stripes);
+    }
+
+    private static LocalDate day(Instant orderDate) {
+        return LocalDate.ofInstant(orderDate != null ? orderDate : Instant.EPOCH, ZoneOffset.UTC);
+    }
+
+    private static long amount(Long amount) {
+        return amount != null ? amount : 0L;
+    }
+
+    private record BucketKey(LocalDate day, String status) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.eshop.order_service.saga;
+
+import com.eshop.order_service.entity.OutboxEvent;
+import com.eshop.order_service.external.client.PaymentClient;
+import com.eshop.order_service.external.client.PaymentRequestForPaymentService;
+import com.eshop.order_service.external.client.ProductService;
+import com.eshop.order_service.repository.OutboxEventRepository;
+import com.eshop.order_service.rollup.OrderRollup;
+import com.eshop.order_service.stock.ParallelStockReducer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * The steps of order placement after the order row exists:
+ * <pre>
+ *   RESERVE_STOCK --ok--> CHARGE_PAYMENT --ok--> order PLACED
+ *        |                     |
+ *      gave up               gave up --> VOID_PAYMENT + RELEASE_STOCK
+ *        |                     v
+ *        +----------------> order FAILED + RELEASE_STOCK
+ * </pre>
+ * A step that gave up may still have taken effect downstream (a timeout after the commit), so
+ * every give-up queues the compensations of everything up to and including itself. They are
+ * keyed on the order id and undo only what was really applied.
+ * {@link #execute} makes the remote call only; the outcome, the order status and the next step
+ * are then written together in one local transaction, so a step is queued exactly when the one
+ * before it is recorded as done. Only the run that moves the event out of PENDING records an
+ * outcome; a duplicate run of the same event changes nothing.
+ */
+@Component
+@Slf4j
+public class OrderSaga {
+
+    private final OrderRollup orderRollup;
+    private final OutboxEventRepository outboxRepository;
+    private final ProductService productService;
+    private final PaymentClient paymentClient;
+    private final ParallelStockReducer parallelStockReducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderSaga(OrderRollup orderRollup,
+                     OutboxEventRepository outboxRepository,
+                     ProductService productService,
+                     PaymentClient paymentClient,
+                     ParallelStockReducer parallelStockReducer,
+                     ObjectMapper objectMapper,
+                     TransactionTemplate transactionTemplate) {
+        this.orderRollup = orderRollup;
+        this.outboxRepository = outboxRepository;
+        this.productService = productService;
+        this.paymentClient = paymentClient;
+        this.parallelStockReducer = parallelStockReducer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** Queue the first step. Must run inside the transaction that creates the order. */
+    public void start(Long orderId, SagaPayload payload) {
+        enqueue(orderId, OutboxEvent.RESERVE_STOCK, payload, Instant.now());
+    }
+
+    /**
+     * The remote call of one step; any exception leaves the decision to retry with the caller.
+     * Every call carries the order id, which product- and payment-service dedupe on: a step can
+     * run twice when its lease runs out mid-call, and the repeat must not take stock or charge again.
+     */
+    public void execute(OutboxEvent event) {
+        SagaPayload payload = read(event);
+        switch (event.getEventType()) {
+            case OutboxEvent.RESERVE_STOCK -> {
+                if (parallelStockReducer.isEnabled()) {
+                    // restores whatever it took before rethrowing, so a retry starts clean
+                    parallelStockReducer.reduceAll(event.getOrderId(), payload.lines());
+                } else {
+                    requireSuccess(productService.reduceQuantities(payload.lines(), event.getOrderId()), event);
+                }
+            }
+            case OutboxEvent.CHARGE_PAYMENT -> {
+                PaymentRequestForPaymentService pay = new PaymentRequestForPaymentService();
+                pay.setOrderId(event.getOrderId());
+                pay.setAmount(payload.amount());
+                pay.setPaymentMethod(payload.paymentMethod());
+                pay.setReferenceNumber("REF-" + event.getOrderId());
+                Long paymentId = paymentClient.doPayment(pay);
+                log.info("Payment {} completed for order {}", paymentId, event.getOrderId());
+            }
+            case OutboxEvent.RELEASE_STOCK -> requireSuccess(productService.restoreQuantities(payload.lines(), event.getOrderId()), event);
+            case OutboxEvent.VOID_PAYMENT -> requireSuccess(paymentClient.voidPayment(event.getOrderId()), event);
+            default -> throw new IllegalStateException("Unknown outbox event type " + event.getEventType());
+        }
+    }
+
+    /** Record a successful step and queue the next one, unless another run of the step already did. */
+    public void complete(OutboxEvent event) {
+        Instant now = Instant.now();
+        boolean settled = transactionTemplate.execute(status -> {
+            if (outboxRepository.finish(event.getId(), OutboxEvent.DONE, null, now) == 0) {
+                return false;
+            }
+            switch (event.getEventType()) {
+                case OutboxEvent.RESERVE_STOCK -> {
+                    orderRollup.changeStatus(event.getOrderId(), "STOCK_RESERVED");
+                    enqueue(event.getOrderId(), OutboxEvent.CHARGE_PAYMENT, read(event), now);
+                }
+                case OutboxEvent.CHARGE_PAYMENT -> orderRollup.changeStatus(event.getOrderId(), "PLACED");
+                default -> {
+                    // RELEASE_STOCK / VOID_PAYMENT: the order already is FAILED
+                }
+            }
+            return true;
+        });
+        if (!settled) {
+            log.warn("Order {}: {} was already settled by another run; outcome not recorded twice",
+                    event.getOrderId(), event.getEventType());
+            return;
+        }
+        log.info("Order {}: {} done", event.getOrderId(), event.getEventType());
+    }
+
+    /** Record a step that will not be retried, failing the order and compensating what came before. */
+    public void giveUp(OutboxEvent event, String error) {
+        Instant now = Instant.now();
+        boolean settled = transactionTemplate.execute(status -> {
+            if (outboxRepository.finish(event.getId(), OutboxEvent.FAILED, error, now) == 0) {
+                return false;
+            }
+            switch (event.getEventType()) {
+                case OutboxEvent.RESERVE_STOCK -> {
+                    // retries mostly run out on timeouts, which can hide a committed reduce
+                    orderRollup.changeStatus(event.getOrderId(), "FAILED");
+                    enqueue(event.getOrderId(), OutboxEvent.RELEASE_STOCK, read(event), now);
+                }
+                case OutboxEvent.CHARGE_PAYMENT -> {
+                    orderRollup.changeStatus(event.getOrderId(), "FAILED");
+                    enqueue(event.getOrderId(), OutboxEvent.VOID_PAYMENT, read(event), now);
+                    enqueue(event.getOrderId(), OutboxEvent.RELEASE_STOCK, read(event), now);
+                }
+                default -> {
+                    // a compensation exhausted its retries: stock or payment stays until fixed by hand
+                }
+            }
+            return true;
+        });
+        if (!settled) {
+            log.warn("Order {}: {} was already settled by another run; failure not recorded: {}",
+                    event.getOrderId(), event.getEventType(), error);
+            return;
+        }
+        if (OutboxEvent.isCompensation(event.getEventType())) {
+            log.error("Order {}: could not complete {}, giving up: {}", event.getOrderId(), event.getEventType(), error);
+        } else {
+            log.warn("Order {} failed at {}: {}", event.getOrderId(), event.getEventType(), error);
+        }
+    }
+
+    private void enqueue(Long orderId, String eventType, SagaPayload payload, Instant now) {
+        outboxRepository.save(new OutboxEvent(orderId, eventType, write(payload), now));
+    }
+
+    private static void requireSuccess(ResponseEntity<Void> response, OutboxEvent event) {
+        if (response.getStatusCode().isError()) {
+            throw new IllegalStateException(event.getEventType() + " failed for order " + event.getOrderId()
+                    + " with status " + response.getStatusCode());
+        }
+    }
+
+    private SagaPayload read(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), SagaPayload.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getId(), e);
+        }
+    }
+
+    private String write(SagaPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize saga payload", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.eshop.order_service.saga;
+
+import com.eshop.order_service.entity.OutboxEvent;
+import com.eshop.order_service.exception.CustomException;
+import com.eshop.order_service.repository.OutboxEventRepository;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@link OrderSaga} from the order_outbox table.
+ * <p>
+ * Each poll claims up to {@code batch-size} due events with {@code FOR UPDATE SKIP LOCKED} and
+ * leases them by pushing {@code next_attempt_at} forward, so several instances (or an external
+ * poller standing in for a broker, with {@code order.outbox.dispatcher.enabled=false}) never run
+ * the same event at once. The claimed batch runs concurrently; a crashed worker's events become
+ * due again when their lease runs out.
+ * <p>
+ * The lease must outlast the longest step a live worker can take (a Feign call at its connect
+ * plus read timeout, after the parallel stock reducer's own timeout), otherwise a slow but healthy
+ * step is run a second time; startup fails when it does not. A second run can still happen after
+ * a crash, so steps are idempotent downstream and only one run records the outcome.
+ * <p>
+ * Failures are retried with exponential backoff. 4xx answers other than 408/429 are treated as
+ * final (e.g. insufficient stock, declined payment) and end the step at once.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxRepository;
+    private final OrderSaga saga;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final int releaseMaxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final ExecutorService workers;
+
+    public OutboxDispatcher(OutboxEventRepository outboxRepository,
+                            OrderSaga saga,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${order.outbox.dispatcher.enabled:true}") boolean enabled,
+                            @Value("${order.outbox.dispatcher.threads:8}") int threads,
+                            @Value("${order.outbox.batch-size:50}") int batchSize,
+                            @Value("${order.outbox.lease:120s}") Duration lease,
+                            @Value("${order.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${order.outbox.release-max-attempts:50}") int releaseMaxAttempts,
+                            @Value("${order.outbox.initial-backoff:1s}") Duration initialBackoff,
+                            @Value("${order.outbox.max-backoff:5m}") Duration maxBackoff,
+                            @Value("${order.outbox.retention:7d}") Duration retention,
+                            @Value("${spring.cloud.openfeign.client.config.default.connect-timeout:10000}") long connectTimeoutMillis,
+                            @Value("${spring.cloud.openfeign.client.config.default.read-timeout:60000}") long readTimeoutMillis,
+                            @Value("${order.stock.parallel.timeout-ms:10000}") long stockTimeoutMillis) {
+        Duration longestStep = Duration.ofMillis(stockTimeoutMillis + connectTimeoutMillis + readTimeoutMillis);
+        if (lease.compareTo(longestStep) <= 0) {
+            throw new IllegalStateException("order.outbox.lease (" + lease + ") must exceed the longest saga step ("
+                    + longestStep + " = stock timeout + Feign connect timeout + Feign read timeout)");
+        }
+        this.outboxRepository = outboxRepository;
+        this.saga = saga;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.releaseMaxAttempts = releaseMaxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "order-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        List<OutboxEvent> batch;
+        do {
+            batch = claim();
+            CompletableFuture.allOf(batch.stream()
+                            .map(event -> CompletableFuture.runAsync(() -> process(event), workers))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxEvent> claim() {
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = outboxRepository.lockDue(now, batchSize);
+            // flushed on commit: the rows stay PENDING but are not due again until the lease ends
+            due.forEach(event -> {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plus(lease));
+            });
+            return due;
+        });
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            saga.execute(event);
+        } catch (Exception e) {
+            String error = describe(e);
+            try {
+                if (isFinal(e) || event.getAttempts() >= attemptLimit(event)) {
+                    saga.giveUp(event, error);
+                } else {
+                    Instant next = Instant.now().plus(backoff(event.getAttempts()));
+                    transactionTemplate.executeWithoutResult(status -> outboxRepository.reschedule(event.getId(), next, error));
+                    log.info("Order {}: {} attempt {} failed, retrying at {}: {}",
+                            event.getOrderId(), event.getEventType(), event.getAttempts(), next, error);
+                }
+            } catch (Exception recordFailure) {
+                log.error("Could not record failure of outbox event {}; it runs again after its lease", event.getId(), recordFailure);
+            }
+            return;
+        }
+        try {
+            saga.complete(event);
+        } catch (Exception e) {
+            // the remote call succeeded but its outcome is not stored: the step repeats after the lease
+            log.error("Could not record completion of outbox event {}", event.getId(), e);
+        }
+    }
+
+    private int attemptLimit(OutboxEvent event) {
+        return OutboxEvent.isCompensation(event.getEventType()) ? releaseMaxAttempts : maxAttempts;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static boolean isFinal(Exception e) {
+        int status = e instanceof CustomException custom ? custom.getStatusCode()
+                : e instanceof FeignException feign ? feign.status()
+                : -1;
+        return status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return message.length() > 512 ? message.substring(0, 512) : message;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.prune-interval-ms:3600000}")
+    public void prune() {
+        int deleted = outboxRepository.deleteDoneBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Pruned {} processed outbox event(s)", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,9 @@
+package com.eshop.order_service.saga;
+
+import com.eshop.order_service.payload.ReduceQuantityRequest;
+
+import java.util.List;
+
+/** What every step of an order saga needs, carried from one outbox event to the next. */
+public record SagaPayload(List<ReduceQuantityRequest> lines, Long amount, String paymentMethod) {
+}
@@ -1,38 +1,75 @@
 package com.eshop.order_service.service.Impl;
 
 import com.eshop.order_service.entity.Order;
+import com.eshop.order_service.entity.OrderItem;
 import com.eshop.order_service.exception.CustomException;
-import com.eshop.order_service.external.client.PaymentClient;
-import com.eshop.order_service.external.client.PaymentRequestForPaymentService;
-import com.eshop.order_service.external.client.ProductService;
+import com.eshop.order_service.idempotency.IdempotencyStore;
+import com.eshop.order_service.payload.OrderDailySummaryResponse;
+import com.eshop.order_service.payload.OrderLinesResponse;
 import com.eshop.order_service.payload.OrderRequest;
 import com.eshop.order_service.payload.OrderResponse;
+import com.eshop.order_service.payload.OrderSearchResponse;
+import com.eshop.order_service.payload.OrderSummaryResponse;
 import com.eshop.order_service.payload.ReduceQuantityRequest;
+import com.eshop.order_service.repository.OrderDailyRollupRepository;
+import com.eshop.order_service.repository.OrderItemJdbcRepository;
+import com.eshop.order_service.repository.OrderItemRepository;
 import com.eshop.order_service.repository.OrderRepository;
+import com.eshop.order_service.rollup.OrderRollup;
+import com.eshop.order_service.saga.OrderSaga;
+import com.eshop.order_service.saga.SagaPayload;
 import com.eshop.order_service.service.OrderService;
+import com.eshop.order_service.utils.OrderCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_SUMMARY_DAYS = 366;
+
     private final OrderRepository orderRepository;
-    private final ProductService productService;
-    private final PaymentClient paymentClient;
+    private final OrderDailyRollupRepository orderDailyRollupRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderItemJdbcRepository orderItemJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderSaga orderSaga;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderRollup orderRollup;
 
     @Override
-    @Transactional
     public Long placeOrder(OrderRequest req) {
+        return createOrder(req, orderId -> { });
+    }
+
+    @Override
+    public Long placeOrder(OrderRequest req, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return placeOrder(req);
+        }
+        String fingerprint = idempotencyStore.fingerprint(req);
+        return idempotencyStore.execute(idempotencyKey, fingerprint,
+                () -> createOrder(req, orderId -> idempotencyStore.record(idempotencyKey, fingerprint, orderId)));
+    }
+
+    // Only writes locally; OrderSaga takes the order through stock reservation and payment.
+    // inTransaction runs with the new order id before the order commits.
+    private Long createOrder(OrderRequest req, Consumer<Long> inTransaction) {
         // ---- Validate ----
         if (req.getItems() == null || req.getItems().isEmpty()) {
             throw new CustomException("Order must contain at least one item", "EMPTY_ORDER", 400);
@@ -41,6 +78,7 @@ public class OrderServiceImpl implements OrderService {
         // ---- Compute totals (BigDecimal safe math) ----
         BigDecimal itemsTotal = BigDecimal.ZERO;
         long totalQty = 0L;
+        List<OrderItem> items = new ArrayList<>(req.getItems().size());
 
         for (OrderRequest.Item it : req.getItems()) {
             if (it.getProductId() == null) {
@@ -53,9 +91,19 @@ public class OrderServiceImpl implements OrderService {
                 throw new CustomException("unitPrice is required", "INVALID_ITEM", 400);
             }
 
-            BigDecimal line = it.getUnitPrice().multiply(BigDecimal.valueOf(it.getQuantity()));
+            BigDecimal unitPrice = it.getUnitPrice().setScale(2, RoundingMode.HALF_UP);
+            BigDecimal line = unitPrice.multiply(BigDecimal.valueOf(it.getQuantity()));
             itemsTotal = itemsTotal.add(line);
             totalQty += it.getQuantity();
+
+            OrderItem item = new OrderItem();
+            item.setLineNo(items.size() + 1);
+            item.setProductId(it.getProductId());
+            item.setProductName(it.getProductName());
+            item.setQuantity(it.getQuantity());
+            item.setUnitPrice(unitPrice);
+            item.setLineTotal(line);
+            items.add(item);
         }
 
         BigDecimal shipping = BigDecimal.ZERO;
@@ -65,7 +113,7 @@ public class OrderServiceImpl implements OrderService {
 
         BigDecimal grandTotal = itemsTotal.add(shipping).setScale(2, RoundingMode.HALF_UP);
 
-        // ---- Persist order (single-row schema) ----
+        // ---- Persist order (summary row + one order_items row per line) ----
         var first = req.getItems().get(0);
         Order order = new Order();
         order.setProductId(first.getProductId());  // summary field (first product)
@@ -80,74 +128,123 @@ public class OrderServiceImpl implements OrderService {
         // (B) If you want exact cents, switch to:
         // order.setAmount(grandTotal.movePointRight(2).longValueExact());
 
-        order = orderRepository.save(order);
-        Long orderId = order.getOrderId();
-        log.info("Order {} created. Amount={}, ItemsTotal={}, Shipping={}", orderId, order.getAmount(), itemsTotal, shipping);
-
-        try {
-            // ---- Reduce stock for each item ----
-            for (OrderRequest.Item it : req.getItems()) {
-                ReduceQuantityRequest rq = new ReduceQuantityRequest(it.getProductId(), it.getQuantity());
-                ResponseEntity<Void> resp = productService.reduceQuantity(rq);
-                if (resp.getStatusCode().isError()) {
-                    throw new IllegalStateException("Stock reduce failed for productId=" + it.getProductId());
-                }
-            }
-
-            // ---- Charge payment once for the grand total ----
-            PaymentRequestForPaymentService pay = new PaymentRequestForPaymentService();
-            pay.setOrderId(orderId);
-            pay.setAmount(order.getAmount()); // matches your Long amount convention
-            // If you kept PaymentMethod in OrderRequest, you can pass it; else default:
-            pay.setPaymentMethod(
-                    req.getPaymentMethod() != null ? req.getPaymentMethod().name() : "CREDIT_CARD"
-            );
-            pay.setReferenceNumber("REF-" + orderId);
-
-            Long paymentId = paymentClient.doPayment(pay);
-            log.info("Payment {} completed for order {}", paymentId, orderId);
-
-            // ---- Success ----
-            order.setOrderStatus("PLACED");
-            orderRepository.save(order);
-            return orderId;
-
-        } catch (Exception ex) {
-            log.error("Order {} failed: {}", orderId, ex.getMessage(), ex);
-            order.setOrderStatus("FAILED");
-            orderRepository.save(order);
-            throw new CustomException(
-                    "Failed to place order " + orderId + ": " + ex.getMessage(),
-                    "ORDER_PLACEMENT_FAILED",
-                    502
-            );
-        }
+        // the header and its lines commit together, in a transaction that ends before any remote call
+        List<ReduceQuantityRequest> lines = req.getItems().stream()
+                .map(it -> new ReduceQuantityRequest(it.getProductId(), it.getQuantity()))
+                .toList();
+        SagaPayload payload = new SagaPayload(lines, order.getAmount(),
+                req.getPaymentMethod() != null ? req.getPaymentMethod().name() : "CREDIT_CARD");
+
+        // order, lines and the first saga step commit together; stock and payment follow asynchronously
+        Order header = order;
+        order = transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(header);
+            orderRollup.created(saved.getOrderDate(), saved.getOrderStatus(), saved.getAmount());
+            orderItemJdbcRepository.insertAll(saved.getOrderId(), items);
+            orderSaga.start(saved.getOrderId(), payload);
+            inTransaction.accept(saved.getOrderId());
+            return saved;
+        });
+        log.info("Order {} accepted. Amount={}, ItemsTotal={}, Shipping={}", order.getOrderId(), order.getAmount(), itemsTotal, shipping);
+        return order.getOrderId();
     }
 
     @Override
     @Transactional(readOnly = true)
     public OrderResponse getOrder(Long orderId) {
-        Order o = orderRepository.findById(orderId).orElseThrow(
+        Order o = orderRepository.findWithItemsById(orderId).orElseThrow(
                 () -> new CustomException("Order " + orderId + " not found", "ORDER_NOT_FOUND", 404)
         );
 
-        // derive a single 'line' from your summary row
-        long qty = o.getQuantity() == null ? 0L : o.getQuantity();
         long total = o.getAmount() == null ? 0L : o.getAmount();
-        long unitPrice = (qty > 0) ? Math.round((double) total / (double) qty) : total;
-
-        var line = OrderResponse.OrderLine.builder()
-                .productId(o.getProductId())
-                .quantity(o.getQuantity())
-                .unitPrice(unitPrice)
-                .build();
+        List<OrderResponse.OrderLine> lines = o.getItems().isEmpty()
+                ? List.of(summaryLine(o))
+                : o.getItems().stream().map(this::toLine).toList();
 
         return OrderResponse.builder()
                 .orderId(o.getOrderId())
                 .totalAmount(total)
                 .status(o.getOrderStatus())
                 .orderDate(o.getOrderDate())
-                .items(List.of(line))
+                .items(lines)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderLinesResponse getOrderLines(Long orderId, int afterLine, int limit) {
+        List<OrderItem> rows = orderItemRepository.findLines(orderId, afterLine, Limit.of(limit + 1));
+        if (rows.isEmpty() && !orderRepository.existsById(orderId)) {
+            throw new CustomException("Order " + orderId + " not found", "ORDER_NOT_FOUND", 404);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<OrderItem> page = hasMore ? rows.subList(0, limit) : rows;
+        Integer nextAfterLine = hasMore ? page.get(page.size() - 1).getLineNo() : null;
+        return new OrderLinesResponse(orderId, page.stream().map(this::toLine).toList(), nextAfterLine, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSearchResponse searchOrders(String status, Instant from, Instant to, Long productId, String cursor, int limit) {
+        OrderCursor.Position after = cursor != null && !cursor.isBlank() ? OrderCursor.decode(cursor) : null;
+        List<OrderRepository.OrderRow> rows = orderRepository.search(
+                status != null && !status.isBlank() ? status.trim().toUpperCase() : null,
+                from, to, productId,
+                after != null ? after.orderDate() : null,
+                after != null ? after.orderId() : null,
+                Limit.of(limit + 1));
+
+        boolean hasMore = rows.size() > limit;
+        List<OrderRepository.OrderRow> page = hasMore ? rows.subList(0, limit) : rows;
+        OrderRepository.OrderRow last = hasMore ? page.get(page.size() - 1) : null;
+        String nextCursor = last != null ? OrderCursor.encode(last.getOrderDate(), last.getOrderId()) : null;
+        List<OrderSummaryResponse> content = page.stream()
+                .map(row -> new OrderSummaryResponse(row.getOrderId(), row.getOrderDate(), row.getStatus(), row.getAmount(), row.getQuantity()))
+                .toList();
+        return new OrderSearchResponse(content, nextCursor, hasMore, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDailySummaryResponse> getDailySummary(LocalDate from, LocalDate to, String status) {
+        if (from.isAfter(to)) {
+            throw new CustomException("from must not be after to", "INVALID_RANGE", 400);
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SUMMARY_DAYS) {
+            throw new CustomException("Summary range is limited to " + MAX_SUMMARY_DAYS + " days", "INVALID_RANGE", 400);
+        }
+        return orderDailyRollupRepository.findRange(from, to, status != null && !status.isBlank() ? status.trim().toUpperCase() : null)
+                .stream()
+                .map(r -> new OrderDailySummaryResponse(r.getDay(), r.getStatus(), r.getOrderCount(), r.getAmountSum()))
+                .toList();
+    }
+
+    private OrderResponse.OrderLine toLine(OrderItem item) {
+        return OrderResponse.OrderLine.builder()
+                .lineNo(item.getLineNo())
+                .productId(item.getProductId())
+                .productName(item.getProductName())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice())
+                .lineTotal(item.getLineTotal())
+                .build();
+    }
+
+    // Orders placed before order_items existed only have the summary row: derive a single line from it
+    private OrderResponse.OrderLine summaryLine(Order o) {
+        long qty = o.getQuantity() == null ? 0L : o.getQuantity();
+        long total = o.getAmount() == null ? 0L : o.getAmount();
+        BigDecimal unitPrice = qty > 0
+                ? BigDecimal.valueOf(total).divide(BigDecimal.valueOf(qty), 2, RoundingMode.HALF_UP)
+                : BigDecimal.valueOf(total);
+
+        return OrderResponse.OrderLine.builder()
+                .lineNo(1)
+                .productId(o.getProductId())
+                .quantity(o.getQuantity())
+                .unitPrice(unitPrice)
+                .lineTotal(BigDecimal.valueOf(total))
                 .build();
     }
 }
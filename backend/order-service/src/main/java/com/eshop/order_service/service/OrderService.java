@@ -1,11 +1,27 @@
 package com.eshop.order_service.service;
 
+import com.eshop.order_service.payload.OrderDailySummaryResponse;
+import com.eshop.order_service.payload.OrderLinesResponse;
 import com.eshop.order_service.payload.OrderRequest;
 import com.eshop.order_service.payload.OrderResponse;
+import com.eshop.order_service.payload.OrderSearchResponse;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
 
 public interface OrderService {
     Long placeOrder(OrderRequest orderRequest);
+    // at most one order per idempotency key; a repeated key returns the first order's id
+    Long placeOrder(OrderRequest orderRequest, String idempotencyKey);
     OrderResponse getOrder(Long orderId);
+    OrderLinesResponse getOrderLines(Long orderId, int afterLine, int limit);
+
+    // order history / ops search, newest first; every filter is optional
+    OrderSearchResponse searchOrders(String status, Instant from, Instant to, Long productId, String cursor, int limit);
+
+    // count and amount per day and status, from the rollup table
+    List<OrderDailySummaryResponse> getDailySummary(LocalDate from, LocalDate to, String status);
 
 
 }
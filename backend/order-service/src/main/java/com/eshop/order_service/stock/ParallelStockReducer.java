@@ -0,0 +1,179 @@
+package com.eshop.order_service.stock;
+
+import com.eshop.order_service.exception.CustomException;
+import com.eshop.order_service.external.client.ProductService;
+import com.eshop.order_service.payload.ReduceQuantityRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-line stock reduction with all lines in flight at once (order.stock.parallel.enabled).
+ * <p>
+ * Each line is its own reduce-quantity call on a bounded pool, so the outbox dispatcher worker
+ * driving the RESERVE_STOCK step waits roughly for the slowest call instead of the sum of them. The first failure aborts the rest: lines not
+ * yet sent are skipped, and every line that did go through (including ones that finish after the
+ * abort) is given back with restore-quantity.
+ */
+@Component
+@Slf4j
+public class ParallelStockReducer {
+
+    private final ProductService productService;
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelStockReducer(ProductService productService,
+                                @Value("${order.stock.parallel.enabled:false}") boolean enabled,
+                                @Value("${order.stock.parallel.threads:16}") int threads,
+                                @Value("${order.stock.parallel.queue-capacity:256}") int queueCapacity,
+                                @Value("${order.stock.parallel.timeout-ms:10000}") long timeoutMillis) {
+        this.productService = productService;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // a saturated pool runs the call on the calling outbox dispatcher worker instead of failing
+        // the step; that worker then stops claiming events until it returns, throttling dispatch
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "stock-reducer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reduce stock for every line of an order, all-or-nothing. Returns only when every line was
+     * applied; otherwise the applied lines have been restored and the first failure is rethrown.
+     */
+    public void reduceAll(Long orderId, List<ReduceQuantityRequest> lines) {
+        // one call per product: duplicate lines would otherwise race on the same row
+        Map<Long, Long> byProduct = new TreeMap<>();
+        lines.forEach(line -> byProduct.merge(line.getProductId(), line.getQuantity(), Long::sum));
+
+        Attempt attempt = new Attempt();
+        CompletableFuture<?>[] calls = byProduct.entrySet().stream()
+                .map(e -> new ReduceQuantityRequest(e.getKey(), e.getValue()))
+                .map(line -> CompletableFuture.runAsync(() -> reduce(orderId, line, attempt), executor)
+                        .whenComplete((ignored, failure) -> {
+                            if (failure != null) {
+                                attempt.fail(failure);
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        try {
+            // completes on the first failure or once every call has succeeded
+            CompletableFuture.anyOf(CompletableFuture.allOf(calls), attempt.failed)
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            attempt.fail(new CustomException("Stock reservation timed out", "STOCK_TIMEOUT", 504));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            attempt.fail(e);
+        } catch (ExecutionException e) {
+            // already recorded by whenComplete
+        }
+
+        List<ReduceQuantityRequest> toRestore = attempt.abortIfFailed();
+        if (toRestore == null) {
+            return;
+        }
+        restoreAll(orderId, toRestore);
+        throw asRuntime(attempt.firstFailure);
+    }
+
+    private void reduce(Long orderId, ReduceQuantityRequest line, Attempt attempt) {
+        if (attempt.isAborted()) {
+            return; // a sibling already failed; never send this one
+        }
+        productService.reduceQuantity(line, orderId);
+        if (!attempt.recordApplied(line)) {
+            // finished after the abort: nobody else will give this line back
+            restore(orderId, line);
+        }
+    }
+
+    /** Give back lines already taken; failures are logged, the order itself is failed either way. */
+    public void restoreAll(Long orderId, List<ReduceQuantityRequest> lines) {
+        lines.forEach(line -> restore(orderId, line));
+    }
+
+    private void restore(Long orderId, ReduceQuantityRequest line) {
+        try {
+            productService.restoreQuantity(line, orderId);
+        } catch (Exception e) {
+            log.error("Could not restore {} unit(s) of product {}: {}", line.getQuantity(), line.getProductId(), e.getMessage());
+        }
+    }
+
+    private static RuntimeException asRuntime(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause.getMessage(), cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Shared state of one reduceAll call; the lock makes "applied" and "aborted" mutually exclusive per line
+    private static final class Attempt {
+        private final CompletableFuture<Void> failed = new CompletableFuture<>();
+        private final List<ReduceQuantityRequest> applied = new ArrayList<>();
+        private boolean aborted;
+        private volatile Throwable firstFailure;
+
+        void fail(Throwable failure) {
+            synchronized (this) {
+                if (firstFailure == null) {
+                    firstFailure = failure;
+                }
+            }
+            failed.complete(null);
+        }
+
+        synchronized boolean isAborted() {
+            return aborted || firstFailure != null;
+        }
+
+        synchronized boolean recordApplied(ReduceQuantityRequest line) {
+            if (aborted) {
+                return false;
+            }
+            applied.add(line);
+            return true;
+        }
+
+        // null when every line succeeded; otherwise stops further bookkeeping and hands back what to restore
+        synchronized List<ReduceQuantityRequest> abortIfFailed() {
+            if (firstFailure == null) {
+                return null;
+            }
+            aborted = true;
+            return new ArrayList<>(applied);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.eshop.order_service.utils;
+
+import com.eshop.order_service.exception.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque page token for keyset pagination over orders, newest first. Clients must treat it as a
+ * black box; internally it carries the (orderDate, orderId) of the last order of the previous page.
+ */
+public final class OrderCursor {
+
+    private static final String PREFIX = "o1:";
+
+    private OrderCursor() {
+    }
+
+    public static String encode(Instant orderDate, Long orderId) {
+        long micros = Math.addExact(Math.multiplyExact(orderDate.getEpochSecond(), 1_000_000L), orderDate.getNano() / 1_000);
+        String raw = PREFIX + micros + ":" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            String[] parts = raw.substring(PREFIX.length()).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            long micros = Long.parseLong(parts[0]);
+            Instant orderDate = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+            return new Position(orderDate, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid page cursor", "INVALID_CURSOR", 400);
+        }
+    }
+
+    public record Position(Instant orderDate, Long orderId) {
+    }
+}
@@ -25,4 +25,11 @@ public class PaymentController {
         Long transactionId = paymentService.doPayment(paymentRequest);
         return ResponseEntity.ok(transactionId);
     }
+
+    // compensation for a charge the order service gave up on; repeatable, and fine before the charge
+    @PostMapping("/orders/{orderId}/void")
+    public ResponseEntity<Void> voidPayment(@PathVariable Long orderId){
+        paymentService.voidPayment(orderId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -22,7 +22,8 @@ public class TransactionDetail {
     )
     private Long id;
 
-    @Column(name = "order_id", nullable = false)
+    // one payment per order: a repeated charge for the same order finds this row instead
+    @Column(name = "order_id", nullable = false, unique = true)
     private Long orderId;
 
     @Column(name = "payment_mode", nullable = false)
@@ -3,5 +3,9 @@ package com.eshop.payment_service.repository;
 import com.eshop.payment_service.entity.TransactionDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface PaymentRepository extends JpaRepository<TransactionDetail, Long> {
+
+    Optional<TransactionDetail> findByOrderId(Long orderId);
 }
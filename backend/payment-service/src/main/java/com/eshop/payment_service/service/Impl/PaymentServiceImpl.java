@@ -5,9 +5,13 @@ import com.eshop.payment_service.payload.PaymentRequest;
 import com.eshop.payment_service.payload.PaymentResponse;
 import com.eshop.payment_service.repository.PaymentRepository;
 import com.eshop.payment_service.service.PaymentService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.Optional;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
@@ -18,20 +22,79 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
 
+    private static final String SUCCESS = "SUCCESS";
+    private static final String VOIDED = "VOIDED";
+
+    /**
+     * Charges an order once. The order service may repeat the call for the same order (it retries
+     * a step whose outcome it could not record); the repeat answers with the existing transaction.
+     * An order whose payment was voided is never charged again.
+     */
     @Override
     public Long doPayment(PaymentRequest paymentRequest) {
+        Optional<TransactionDetail> existing = paymentRepository.findByOrderId(paymentRequest.getOrderId());
+        if (existing.isPresent()) {
+            return chargedId(existing.get());
+        }
+
         TransactionDetail transactionDetail = new TransactionDetail();
         transactionDetail.setOrderId(paymentRequest.getOrderId());
         transactionDetail.setAmount(paymentRequest.getAmount());
         transactionDetail.setPaymentDate(Instant.now());
         transactionDetail.setPaymentMode(paymentRequest.getPaymentMethod().name());
         transactionDetail.setReferenceNumber(paymentRequest.getReferenceNumber());
-        transactionDetail.setPaymentStatus("SUCCESS");
+        transactionDetail.setPaymentStatus(SUCCESS);
 
-        transactionDetail = paymentRepository.save(transactionDetail);
+        try {
+            transactionDetail = paymentRepository.save(transactionDetail);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent repeat (or void) stored the order's row first
+            return chargedId(paymentRepository.findByOrderId(paymentRequest.getOrderId()).orElseThrow(() -> e));
+        }
         return transactionDetail.getId();
     }
 
+    private static Long chargedId(TransactionDetail existing) {
+        if (VOIDED.equals(existing.getPaymentStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment for order " + existing.getOrderId() + " was voided");
+        }
+        return existing.getId();
+    }
+
+    /**
+     * Voids the order's payment (order saga compensation). Safe to repeat, and safe to arrive
+     * before a charge that timed out on the caller's side: with no payment yet, a VOIDED row is
+     * stored so that charge is refused when it lands.
+     */
+    @Override
+    public void voidPayment(Long orderId) {
+        Optional<TransactionDetail> existing = paymentRepository.findByOrderId(orderId);
+        if (existing.isPresent()) {
+            markVoided(existing.get());
+            return;
+        }
+        TransactionDetail tombstone = new TransactionDetail();
+        tombstone.setOrderId(orderId);
+        tombstone.setAmount(0L);
+        tombstone.setPaymentDate(Instant.now());
+        tombstone.setPaymentMode("NONE");
+        tombstone.setReferenceNumber("VOID-" + orderId);
+        tombstone.setPaymentStatus(VOIDED);
+        try {
+            paymentRepository.save(tombstone);
+        } catch (DataIntegrityViolationException e) {
+            // the charge landed between the lookup and the insert
+            markVoided(paymentRepository.findByOrderId(orderId).orElseThrow(() -> e));
+        }
+    }
+
+    private void markVoided(TransactionDetail payment) {
+        if (!VOIDED.equals(payment.getPaymentStatus())) {
+            payment.setPaymentStatus(VOIDED);
+            paymentRepository.save(payment);
+        }
+    }
+
     @Override
     public PaymentResponse getPaymentDetails(Long transactionId) {
         TransactionDetail tx = paymentRepository.findById(transactionId)
@@ -5,6 +5,7 @@ import com.eshop.payment_service.payload.PaymentResponse;
 
 public interface PaymentService {
     Long doPayment(PaymentRequest paymentRequest);
+    void voidPayment(Long orderId);
     PaymentResponse getPaymentDetails(Long transactionId);
 
 
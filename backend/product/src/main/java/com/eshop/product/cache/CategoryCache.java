@@ -0,0 +1,195 @@
+package com.eshop.product.cache;
+
+import com.eshop.product.client.CategoryClient;
+import com.eshop.product.payload.CategoryResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Size-bounded, TTL-based near-cache for categories read on the product render path.
+ * Entries are evicted least-recently-used once {@code max-size} is reached and can be
+ * dropped explicitly when the category service reports a change. Ids the category service
+ * does not know (deleted categories) are cached too, as negative entries with the same TTL,
+ * so products still pointing at them do not cost a remote call per render.
+ */
+@Component
+public class CategoryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryCache.class);
+
+    // ids go out as repeated query parameters: 200 keeps the request line far below Tomcat's
+    // 8 KB header limit (and below MAX_BATCH_SIZE of the category service's /batch endpoint)
+    private static final int FETCH_BATCH_SIZE = 200;
+
+    private final CategoryClient categoryClient;
+    private final long ttlMillis;
+    private final Map<Long, CachedCategory> entries;
+    private final Map<Long, CachedSubtree> subtrees;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public CategoryCache(CategoryClient categoryClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${product.category-cache.max-size:1000}") int maxSize,
+                         @Value("${product.category-cache.ttl:10m}") Duration ttl) {
+        this.categoryClient = categoryClient;
+        this.ttlMillis = ttl.toMillis();
+        this.hits = Counter.builder("product.category.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("product.category.cache.misses").register(meterRegistry);
+        this.evictions = Counter.builder("product.category.cache.evictions").register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedCategory> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.subtrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSubtree> eldest) {
+                return size() > maxSize;
+            }
+        };
+        Gauge.builder("product.category.cache.size", this, CategoryCache::size).register(meterRegistry);
+    }
+
+    public CategoryResponse get(Long categoryId) {
+        return getAll(List.of(categoryId)).get(categoryId);
+    }
+
+    /**
+     * Resolve the given ids, fetching the misses with batch calls of up to 200 ids each.
+     * Ids unknown to the category service are absent from the result.
+     */
+    public Map<Long, CategoryResponse> getAll(Collection<Long> categoryIds) {
+        Map<Long, CategoryResponse> result = new HashMap<>();
+        Map<Long, CategoryResponse> stale = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+
+        int hitCount = 0;
+        synchronized (entries) {
+            for (Long id : categoryIds) {
+                CachedCategory entry = entries.get(id);
+                if (entry != null && entry.expiresAt > now) {
+                    hitCount++;
+                    if (entry.value != null) {
+                        result.put(id, entry.value);
+                    }
+                } else {
+                    if (entry != null && entry.value != null) {
+                        stale.put(id, entry.value);
+                    }
+                    missing.add(id);
+                }
+            }
+        }
+        hits.increment(hitCount);
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.increment(missing.size());
+
+        // at most FETCH_BATCH_SIZE ids per batch lookup
+        List<Long> pending = new ArrayList<>(missing);
+        for (int from = 0; from < pending.size(); from += FETCH_BATCH_SIZE) {
+            List<Long> chunk = pending.subList(from, Math.min(from + FETCH_BATCH_SIZE, pending.size()));
+            try {
+                List<CategoryResponse> fetched = categoryClient.getCategoriesByIds(chunk);
+                long expiresAt = System.currentTimeMillis() + ttlMillis;
+                synchronized (entries) {
+                    for (CategoryResponse category : fetched) {
+                        entries.put(category.getId(), new CachedCategory(category, expiresAt));
+                        result.put(category.getId(), category);
+                    }
+                    for (Long id : chunk) {
+                        if (!result.containsKey(id)) {
+                            entries.put(id, new CachedCategory(null, expiresAt)); // unknown id
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // Category service unavailable: fall back to whatever we had, even if expired
+                log.warn("Category lookup failed for {} id(s): {}", chunk.size(), e.getMessage());
+                for (Long id : chunk) {
+                    CategoryResponse previous = stale.get(id);
+                    if (previous != null) {
+                        result.put(id, previous);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the category and all categories below it. Falls back to the category alone when
+     * the category service cannot be reached and nothing is cached.
+     */
+    public List<Long> getSubtreeIds(Long categoryId) {
+        long now = System.currentTimeMillis();
+        CachedSubtree cached;
+        synchronized (subtrees) {
+            cached = subtrees.get(categoryId);
+        }
+        if (cached != null && cached.expiresAt > now) {
+            return cached.ids;
+        }
+        try {
+            List<Long> ids = List.copyOf(categoryClient.getSubtreeIds(categoryId, true));
+            synchronized (subtrees) {
+                subtrees.put(categoryId, new CachedSubtree(ids, now + ttlMillis));
+            }
+            return ids;
+        } catch (Exception e) {
+            log.warn("Subtree lookup failed for category {}: {}", categoryId, e.getMessage());
+            return cached != null ? cached.ids : List.of(categoryId);
+        }
+    }
+
+    public void invalidate(Long categoryId) {
+        synchronized (entries) {
+            entries.remove(categoryId);
+        }
+        clearSubtrees(); // a moved category changes the subtree of every former and new ancestor
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        clearSubtrees();
+    }
+
+    private void clearSubtrees() {
+        synchronized (subtrees) {
+            subtrees.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // value is null for an id the category service does not know
+    private record CachedCategory(CategoryResponse value, long expiresAt) {
+    }
+
+    private record CachedSubtree(List<Long> ids, long expiresAt) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.eshop.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read model for the product page: fully rendered {@code ProductResponse} JSON per product,
+ * bounded by total bytes with LRU eviction. Writers evict or replace a document after their
+ * transaction commits; a load that overlapped any eviction is not cached, so a document read
+ * before a write can never be stored after it.
+ */
+@Component
+public class ProductDocumentCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, ProductDocument> documents = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private long invalidations;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ProductDocumentCache(MeterRegistry meterRegistry,
+                                @Value("${product.document-cache.max-size:32MB}") DataSize maxSize) {
+        this.maxBytes = maxSize.toBytes();
+        this.hits = Counter.builder("product.document.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("product.document.cache.misses").register(meterRegistry);
+        Gauge.builder("product.document.cache.bytes", this, ProductDocumentCache::totalBytes).register(meterRegistry);
+    }
+
+    public ProductDocument get(Long productId) {
+        synchronized (documents) {
+            ProductDocument document = documents.get(productId);
+            if (document != null) {
+                hits.increment();
+                return document;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Take before loading a document; pass to {@link #putIfUnchanged} once it is rendered. */
+    public long stamp() {
+        synchronized (documents) {
+            return invalidations;
+        }
+    }
+
+    public void putIfUnchanged(ProductDocument document, long stamp) {
+        synchronized (documents) {
+            if (stamp == invalidations) {
+                store(document);
+            }
+        }
+    }
+
+    /** Replace the document with one rendered from freshly written state. */
+    public void put(ProductDocument document) {
+        synchronized (documents) {
+            invalidations++;
+            store(document);
+        }
+    }
+
+    public void evict(Long productId) {
+        synchronized (documents) {
+            invalidations++;
+            ProductDocument removed = documents.remove(productId);
+            if (removed != null) {
+                totalBytes -= removed.json().length;
+            }
+        }
+    }
+
+    public void evictCategory(Long categoryId) {
+        synchronized (documents) {
+            invalidations++;
+            Iterator<ProductDocument> it = documents.values().iterator();
+            while (it.hasNext()) {
+                ProductDocument document = it.next();
+                if (categoryId.equals(document.categoryId())) {
+                    totalBytes -= document.json().length;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (documents) {
+            invalidations++;
+            documents.clear();
+            totalBytes = 0;
+        }
+    }
+
+    public long totalBytes() {
+        synchronized (documents) {
+            return totalBytes;
+        }
+    }
+
+    private void store(ProductDocument document) {
+        if (document.json().length > maxBytes) {
+            return;
+        }
+        ProductDocument previous = documents.put(document.productId(), document);
+        if (previous != null) {
+            totalBytes -= previous.json().length;
+        }
+        totalBytes += document.json().length;
+        Iterator<Map.Entry<Long, ProductDocument>> eldest = documents.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().json().length;
+            eldest.remove();
+        }
+    }
+
+    /** Serialized response plus the ETag it is served with. */
+    public record ProductDocument(Long productId, Long categoryId, String etag, byte[] json) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.eshop.product.changes;
+
+import com.eshop.product.entity.ProductChange;
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.payload.ProductChangesResponse;
+import com.eshop.product.repository.ProductChangeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Read side of the {@code product_changes} log.
+ * <p>
+ * Writers take a plain AUTO_INCREMENT {@code seq}, so no write waits on another product's writer.
+ * The price is that a lower seq can still be uncommitted while a higher one is visible. The feed
+ * therefore serves entries only up to a watermark below which every seq is either committed or a
+ * hole that has stayed empty for {@code product.changes.gap-timeout}. Holes are normal: a rolled
+ * back writer leaves one, and so does a multi-row insert that InnoDB over-allocates for. Entries
+ * are the last write of their transaction, so a real writer fills its hole within moments.
+ * <p>
+ * Retention records how far it may have deleted before deleting anything; a position below that
+ * mark (including 0) gets 410.
+ */
+@Component
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+    private static final int PRUNE_BATCH_SIZE = 10_000;
+    private static final int SCAN_BATCH_SIZE = 10_000;
+
+    private final ProductChangeRepository changeRepository;
+    private final Duration retention;
+    private final long gapTimeoutMillis;
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    // first seq of each hole seen above the watermark -> when it was first seen
+    private final TreeMap<Long, Long> holes = new TreeMap<>();
+    private volatile long watermark;
+
+    public ProductChangeFeed(ProductChangeRepository changeRepository,
+                             @Value("${product.changes.retention:7d}") Duration retention,
+                             @Value("${product.changes.gap-timeout:10s}") Duration gapTimeout) {
+        this.changeRepository = changeRepository;
+        this.retention = retention;
+        this.gapTimeoutMillis = gapTimeout.toMillis();
+    }
+
+    @PostConstruct
+    public void init() {
+        changeRepository.initRetention();
+        // anything written before the last gap-timeout has settled one way or the other
+        Long settled = changeRepository.findLastSeqBefore(Instant.now().minusMillis(gapTimeoutMillis));
+        watermark = Math.max(settled != null ? settled : 0L, changeRepository.findPrunedThrough().orElse(0L));
+        advance();
+    }
+
+    /** Entries after {@code since} up to the watermark; 410 when some of them may already have been pruned. */
+    public ProductChangesResponse read(long since, int limit) {
+        long prunedThrough = changeRepository.findPrunedThrough().orElse(0L);
+        if (since < prunedThrough) {
+            throw new ProductServiceException(
+                    "Changes after " + since + " are no longer retained; resync from /api/products/export",
+                    "CHANGES_EXPIRED");
+        }
+        long through = watermark;
+        List<ProductChange> rows = changeRepository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(
+                since, through, Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<ProductChange> page = hasMore ? rows.subList(0, limit) : rows;
+        // skip past holes the watermark already gave up on, so an empty range is not read again
+        long nextSince = hasMore ? page.get(page.size() - 1).getSeq() : Math.max(since, through);
+        return new ProductChangesResponse(page, nextSince, hasMore);
+    }
+
+    /**
+     * Long poll: answer now if there is anything to return, otherwise park the request until
+     * an entry after {@code since} commits or the result times out.
+     */
+    public void await(long since, int limit, DeferredResult<ProductChangesResponse> result) {
+        ProductChangesResponse response = read(since, limit);
+        if (!response.getChanges().isEmpty()) {
+            result.setResult(response);
+            return;
+        }
+        Waiter waiter = new Waiter(since, limit, result);
+        result.onTimeout(() -> {
+            waiters.remove(waiter);
+            result.setResult(new ProductChangesResponse(List.of(), since, false));
+        });
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+    }
+
+    /**
+     * The watermark: every change at or below it is readable, and every change committed later
+     * gets a higher seq. A reader that loads the table after this call and then replays the feed
+     * from here misses nothing.
+     */
+    public long head() {
+        advance();
+        return watermark;
+    }
+
+    // Move the watermark over committed entries and over holes older than the gap timeout
+    private synchronized void advance() {
+        long now = System.currentTimeMillis();
+        long reached = watermark;
+        List<Long> seqs;
+        do {
+            seqs = changeRepository.findSeqsAfter(reached, SCAN_BATCH_SIZE);
+            long expected = reached + 1;
+            boolean blocked = false;
+            for (long seq : seqs) {
+                if (seq > expected) {
+                    long firstSeen = holes.computeIfAbsent(expected, start -> now);
+                    if (now - firstSeen < gapTimeoutMillis) {
+                        blocked = true;
+                    } else if (!blocked) {
+                        log.debug("Change feed skips seq {}..{}: never committed", expected, seq - 1);
+                    }
+                }
+                if (!blocked) {
+                    reached = seq;
+                }
+                // keep scanning while blocked, so later holes start their timeout now too
+                expected = seq + 1;
+            }
+            if (blocked) {
+                break;
+            }
+        } while (seqs.size() == SCAN_BATCH_SIZE);
+        holes.headMap(reached, true).clear();
+        watermark = reached;
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.poll-interval-ms:250}")
+    public void wakeWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        long head = head();
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            Waiter waiter = it.next();
+            if (waiter.since() >= head || waiter.result().isSetOrExpired()) {
+                continue;
+            }
+            it.remove();
+            try {
+                waiter.result().setResult(read(waiter.since(), waiter.limit()));
+            } catch (RuntimeException e) {
+                waiter.result().setErrorResult(e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval-ms:3600000}")
+    public void prune() {
+        Instant cutoff = Instant.now().minus(retention);
+        Long through = changeRepository.findLastSeqBefore(cutoff);
+        if (through == null) {
+            return;
+        }
+        // mark first: a crash between the two leaves readers with a 410 too many, never a silent gap
+        changeRepository.markPrunedThrough(through);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = changeRepository.deleteThrough(through, PRUNE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PRUNE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Pruned {} product change entries older than {}", total, cutoff);
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<ProductChangesResponse> result) {
+    }
+}
@@ -5,10 +5,20 @@ import com.eshop.product.payload.CategoryResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
 
 @FeignClient(name = "CATEGORY-SERVICE", path = "/api/categories")
 public interface CategoryClient {
 
     @GetMapping("/{id}")
     CategoryResponse getCategoryById(@PathVariable("id") Long id);
+
+    @GetMapping("/batch")
+    List<CategoryResponse> getCategoriesByIds(@RequestParam("ids") Collection<Long> ids);
+
+    @GetMapping("/{id}/descendants/ids")
+    List<Long> getSubtreeIds(@PathVariable("id") Long id, @RequestParam("includeSelf") boolean includeSelf);
 }
@@ -0,0 +1,66 @@
+package com.eshop.product.controller;
+
+import com.eshop.product.cache.CategoryCache;
+import com.eshop.product.cache.ProductDocumentCache;
+import com.eshop.product.payload.CategoryChangeEvent;
+import com.eshop.product.search.SearchIndexLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Receives change notifications from CATEGORY-SERVICE so cached categories are dropped
+ * immediately instead of waiting for their TTL, and the search index picks up renames.
+ * <p>
+ * Internal only: a notification can clear every cache and re-index every category, so callers
+ * must send the token shared with the category service in {@value #TOKEN_HEADER}. With no token
+ * configured the endpoint refuses everything.
+ */
+@RestController
+@RequestMapping("/api/products/category-events")
+public class CategoryEventController {
+
+    public static final String TOKEN_HEADER = "X-Category-Events-Token";
+
+    private final CategoryCache categoryCache;
+    private final ProductDocumentCache documentCache;
+    private final SearchIndexLoader searchIndexLoader;
+    private final byte[] token;
+
+    public CategoryEventController(CategoryCache categoryCache,
+                                   ProductDocumentCache documentCache,
+                                   SearchIndexLoader searchIndexLoader,
+                                   @Value("${product.category-events.token:}") String token) {
+        this.categoryCache = categoryCache;
+        this.documentCache = documentCache;
+        this.searchIndexLoader = searchIndexLoader;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping
+    public ResponseEntity<Void> onCategoryChanged(@RequestHeader(value = TOKEN_HEADER, required = false) String presented,
+                                                  @RequestBody CategoryChangeEvent event) {
+        if (!authorized(presented)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (event.getCategoryId() == null) {
+            categoryCache.invalidateAll();
+            documentCache.clear();
+        } else {
+            categoryCache.invalidate(event.getCategoryId());
+            documentCache.evictCategory(event.getCategoryId()); // documents embed the category name
+        }
+        searchIndexLoader.refreshCategoryNames(event.getCategoryId());
+        return ResponseEntity.accepted().build();
+    }
+
+    // constant-time comparison, so the token cannot be guessed byte by byte from response times
+    private boolean authorized(String presented) {
+        return token.length > 0 && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,242 @@
+package com.eshop.product.controller;
+
+import com.eshop.product.image.HotImageCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves uploaded images with strong content-hash ETags, conditional GET, single byte ranges and
+ * zero-copy transfer (Tomcat sendfile when the connector supports it, {@link FileChannel#transferTo}
+ * otherwise). Files named by their SHA-256 never change, so they are cached as immutable.
+ */
+@RestController
+public class ImageController {
+
+    private static final String PREFIX = "/uploads/";
+    private static final Pattern HASHED_NAME = Pattern.compile("^([0-9a-f]{64})(_[a-z]+)?(\\.[a-z0-9]+)?$");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=86400";
+    /** Below this size a plain copy is cheaper than setting up sendfile (Tomcat's own default). */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final int MAX_COMPUTED_ETAGS = 10_000;
+
+    private final Path root;
+    private final Path stagingDirectory;
+    private final HotImageCache hotCache;
+    private final Map<String, String> computedEtags = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_COMPUTED_ETAGS;
+        }
+    };
+
+    public ImageController(HotImageCache hotCache,
+                           @Value("${product.images.serve-root:uploads}") String root,
+                           @Value("${product.images.staging-dir:uploads/tmp}") String stagingDirectory) {
+        this.hotCache = hotCache;
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.stagingDirectory = Paths.get(stagingDirectory).toAbsolutePath().normalize();
+    }
+
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = resolve(request);
+        BasicFileAttributes attributes = file != null ? readAttributes(file) : null;
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Matcher hashed = HASHED_NAME.matcher(file.getFileName().toString());
+        String etag = hashed.matches()
+                ? "\"" + hashed.group(1) + (hashed.group(2) != null ? hashed.group(2) : "") + "\""
+                : computedEtag(file, size, lastModified);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, hashed.matches() ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+            if (matcher.matches()) { // multi-range requests fall through to a full response
+                long[] bounds = parseRange(matcher.group(1), matcher.group(2), size);
+                if (bounds == null) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (RequestMethod.HEAD.name().equals(request.getMethod())) {
+            return;
+        }
+
+        if (length == size && hotCache.accepts(size)) {
+            writeCached(file, size, lastModified, response);
+        } else if (length >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            // Tomcat streams the file with sendfile(2) once this handler returns
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+        } else {
+            transfer(file, start, length, response.getOutputStream());
+        }
+    }
+
+    private Path resolve(HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        if (!uri.startsWith(PREFIX)) {
+            return null;
+        }
+        String relative = UriUtils.decode(uri.substring(PREFIX.length()), StandardCharsets.UTF_8);
+        if (relative.isEmpty() || relative.indexOf('\0') >= 0) {
+            return null;
+        }
+        try {
+            Path file = root.resolve(relative).normalize();
+            // reject ../ traversal and half-processed uploads
+            return file.startsWith(root) && !file.startsWith(stagingDirectory) ? file : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeCached(Path file, long size, long lastModified, HttpServletResponse response) throws IOException {
+        byte[] content = hotCache.get(file, size, lastModified);
+        if (content == null) {
+            content = Files.readAllBytes(file);
+            hotCache.put(file, lastModified, content);
+        }
+        response.getOutputStream().write(content);
+    }
+
+    private static void transfer(Path file, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /** Files that predate content-hashed names get an ETag from their bytes, computed once. */
+    private String computedEtag(Path file, long size, long lastModified) throws IOException {
+        String key = file + ":" + size + ":" + lastModified;
+        synchronized (computedEtags) {
+            String etag = computedEtags.get(key);
+            if (etag != null) {
+                return etag;
+            }
+        }
+        String etag = "\"" + sha256(file) + "\"";
+        synchronized (computedEtags) {
+            computedEtags.put(key, etag);
+        }
+        return etag;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns inclusive {start, end}, or null when the range cannot be satisfied. */
+    private static long[] parseRange(String first, String last, long size) {
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                return suffix == 0 || size == 0 ? null : new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            return start >= size || start > end ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.eshop.product.controller;
+
+import com.eshop.product.changes.ProductChangeFeed;
+import com.eshop.product.payload.ProductChangesResponse;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Incremental sync for downstream consumers: price and stock after every product mutation,
+ * in sequence order. Start from the head of an /export, then keep passing nextSince back.
+ */
+@RestController
+@RequestMapping("/api/products/changes")
+public class ProductChangeController {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 5000;
+    private static final int MAX_WAIT_SECONDS = 30;
+
+    private final ProductChangeFeed changeFeed;
+
+    public ProductChangeController(ProductChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * wait > 0 turns the call into a long poll that returns as soon as a change arrives
+     * (or empty after wait seconds)
+     */
+    @GetMapping
+    public DeferredResult<ProductChangesResponse> changes(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                          @RequestParam(value = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit,
+                                                          @RequestParam(value = "wait", defaultValue = "0") int wait) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        int waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        DeferredResult<ProductChangesResponse> result = new DeferredResult<>(waitSeconds > 0 ? waitSeconds * 1000L : null);
+        if (waitSeconds == 0) {
+            result.setResult(changeFeed.read(Math.max(0, since), pageSize));
+        } else {
+            changeFeed.await(Math.max(0, since), pageSize, result);
+        }
+        return result;
+    }
+}
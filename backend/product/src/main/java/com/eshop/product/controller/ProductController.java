@@ -1,19 +1,37 @@
 package com.eshop.product.controller;
 
+import com.eshop.product.cache.ProductDocumentCache.ProductDocument;
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.payload.FacetResponse;
+import com.eshop.product.payload.ProductPageResponse;
 import com.eshop.product.payload.ProductRequest;
 import com.eshop.product.payload.ProductResponse;
+import com.eshop.product.payload.ProductSearchResponse;
 import com.eshop.product.payload.ReduceQuantityRequest;
+import com.eshop.product.search.SearchQuery;
 import com.eshop.product.service.ProductService;
+import com.eshop.product.utils.ProductCursor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 
 @RequestMapping("/api/products")
 @RestController
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final long[] DEFAULT_PRICE_BUCKETS = {0, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+    private static final int MAX_PRICE_BUCKETS = 100;
+
     private final ProductService productService;
 
     public ProductController(ProductService productService) {
@@ -27,20 +45,121 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.CREATED);
     }
 
+    /**
+     * The full list, as before. Keyset pagination is opt-in: pass limit, then the previous page's
+     * nextCursor (or a raw productId via after) to continue; the answer is then a ProductPageResponse.
+     * all=true forces the full list.
+     */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts(){
-        List<ProductResponse> productResponses = productService.getAllProducts();
-        return new ResponseEntity<>(productResponses, HttpStatus.OK);
+    public ResponseEntity<?> getAllProducts(@RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "after", required = false) Long after,
+                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                            @RequestParam(value = "all", defaultValue = "false") boolean all){
+        if (all || !isPaged(cursor, after, limit)) {
+            List<ProductResponse> productResponses = productService.getAllProducts();
+            return new ResponseEntity<>(productResponses, HttpStatus.OK);
+        }
+        ProductPageResponse page = productService.getProductPage(resolveAfter(cursor, after), clampLimit(limit));
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    /**
+     * Full-text search over name, description and category name, ranked by relevance unless
+     * sort is price_asc, price_desc, newest or name
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> search(@RequestParam(value = "q", required = false) String q,
+                                                        @RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                        @RequestParam(value = "minPrice", required = false) Long minPrice,
+                                                        @RequestParam(value = "maxPrice", required = false) Long maxPrice,
+                                                        @RequestParam(value = "sort", defaultValue = "relevance") String sort,
+                                                        @RequestParam(value = "page", defaultValue = "0") int page,
+                                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        SearchQuery query = new SearchQuery(q, categoryId, minPrice, maxPrice, sort,
+                Math.max(page, 0), Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+        return ResponseEntity.ok(productService.searchProducts(query));
     }
 
+    /**
+     * Category counts, price histogram and in-stock count for the products matching the filters.
+     * priceBuckets lists ascending bucket lower bounds; the last bucket is open-ended.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetResponse> facets(@RequestParam(value = "categoryId", required = false) Long categoryId,
+                                                @RequestParam(value = "minPrice", required = false) Long minPrice,
+                                                @RequestParam(value = "maxPrice", required = false) Long maxPrice,
+                                                @RequestParam(value = "inStock", defaultValue = "false") boolean inStock,
+                                                @RequestParam(value = "priceBuckets", required = false) long[] priceBuckets) {
+        long[] edges = priceBuckets != null && priceBuckets.length > 0 ? priceBuckets.clone() : DEFAULT_PRICE_BUCKETS;
+        if (edges.length > MAX_PRICE_BUCKETS) {
+            throw new ProductServiceException("At most " + MAX_PRICE_BUCKETS + " price buckets", "INVALID_FACETS");
+        }
+        Arrays.sort(edges);
+        return ResponseEntity.ok(productService.getFacets(categoryId, minPrice, maxPrice, inStock, edges));
+    }
+
+    /**
+     * Streams the catalog as NDJSON (one ProductResponse per line). since= limits the export
+     * to products modified at or after the given ISO-8601 instant.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(value = "since", required = false) Instant since) {
+        StreamingResponseBody body = out -> productService.exportProducts(since, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Writes the cached, pre-serialized ProductResponse; answers 304 when If-None-Match carries
+     * the current version
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable("id") Long productId){
-        ProductResponse productResponse = productService.getProductById(productId);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    public ResponseEntity<byte[]> getProductById(@PathVariable("id") Long productId, WebRequest webRequest){
+        ProductDocument document = productService.getProductDocument(productId);
+        if (webRequest.checkNotModified(document.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(document.json());
     }
     @PutMapping("/reduce-quantity")
-    public ResponseEntity<Void> reduceQuantity(@RequestBody ReduceQuantityRequest request) {
-        productService.reduceQuantity(request.getProductId(), request.getQuantity());
+    public ResponseEntity<Void> reduceQuantity(@RequestBody ReduceQuantityRequest request,
+                                               @RequestParam(value = "orderId", required = false) Long orderId) {
+        productService.reduceQuantity(request.getProductId(), request.getQuantity(), orderId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Reduce stock for all lines of an order in one transaction: either every line is applied or none is.
+     * With orderId, lines this order already holds are skipped, so a repeated call changes nothing
+     */
+    @PutMapping("/reduce-quantity/batch")
+    public ResponseEntity<Void> reduceQuantities(@RequestBody List<ReduceQuantityRequest> requests,
+                                                 @RequestParam(value = "orderId", required = false) Long orderId) {
+        productService.reduceQuantities(requests, orderId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Give back stock taken by reduce-quantity, e.g. when a later step of an order fails
+     */
+    @PutMapping("/restore-quantity")
+    public ResponseEntity<Void> restoreQuantity(@RequestBody ReduceQuantityRequest request,
+                                                @RequestParam(value = "orderId", required = false) Long orderId) {
+        productService.restoreQuantity(request.getProductId(), request.getQuantity(), orderId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Give back stock for all lines of an order in one transaction (order saga compensation).
+     * With orderId, only lines the order still holds are given back
+     */
+    @PutMapping("/restore-quantity/batch")
+    public ResponseEntity<Void> restoreQuantities(@RequestBody List<ReduceQuantityRequest> requests,
+                                                  @RequestParam(value = "orderId", required = false) Long orderId) {
+        productService.restoreQuantities(requests, orderId);
         return ResponseEntity.noContent().build();
     }
 
@@ -48,7 +167,46 @@ public class ProductController {
 
 
     @GetMapping("/by-category/{categoryId}")
-    public ResponseEntity<List<ProductResponse>> getByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryId));
+    public ResponseEntity<?> getByCategory(@PathVariable Long categoryId,
+                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                           @RequestParam(value = "after", required = false) Long after,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           @RequestParam(value = "all", defaultValue = "false") boolean all,
+                                           @RequestParam(value = "includeDescendants", defaultValue = "false") boolean includeDescendants,
+                                           WebRequest webRequest) {
+        // same contract as GET /api/products: a plain array unless a page is asked for
+        all = all || !isPaged(cursor, after, limit);
+        String version = includeDescendants
+                ? productService.getCategoryTreeProductsVersion(categoryId)
+                : productService.getCategoryProductsVersion(categoryId);
+        if (version != null && webRequest.checkNotModified(version)) {
+            return null;
+        }
+        if (includeDescendants) {
+            return all
+                    ? ResponseEntity.ok(productService.getProductsByCategoryTree(categoryId))
+                    : ResponseEntity.ok(productService.getProductPageByCategoryTree(
+                            categoryId, resolveAfter(cursor, after), clampLimit(limit)));
+        }
+        if (all) {
+            return ResponseEntity.ok(productService.getProductsByCategory(categoryId));
+        }
+        return ResponseEntity.ok(
+                productService.getProductPageByCategory(categoryId, resolveAfter(cursor, after), clampLimit(limit)));
+    }
+
+    private static Long resolveAfter(String cursor, Long after) {
+        return cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor) : after;
+    }
+
+    private static boolean isPaged(String cursor, Long after, Integer limit) {
+        return limit != null || after != null || (cursor != null && !cursor.isBlank());
+    }
+
+    private static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
 }
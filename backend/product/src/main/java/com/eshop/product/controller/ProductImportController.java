@@ -0,0 +1,41 @@
+package com.eshop.product.controller;
+
+import com.eshop.product.importer.ProductImporter;
+import com.eshop.product.payload.ProductImportResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Bulk catalog import. The body (a JSON array of products, or CSV with a header row when sent as
+ * text/csv) is read straight from the request stream, never buffered whole.
+ */
+@RestController
+@RequestMapping("/api/products/import")
+public class ProductImportController {
+
+    private static final int MAX_CHUNK_SIZE = 5000;
+
+    private final ProductImporter productImporter;
+    private final int defaultChunkSize;
+
+    public ProductImportController(ProductImporter productImporter,
+                                   @Value("${product.import.chunk-size:1000}") int defaultChunkSize) {
+        this.productImporter = productImporter;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    @PostMapping(consumes = {"application/json", "text/csv"})
+    public ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request,
+                                                                @RequestParam(value = "chunkSize", required = false) Integer chunkSize) throws IOException {
+        int size = Math.max(1, Math.min(chunkSize != null ? chunkSize : defaultChunkSize, MAX_CHUNK_SIZE));
+        String contentType = request.getContentType();
+        ProductImportResponse report = contentType != null && contentType.startsWith("text/csv")
+                ? productImporter.importCsv(request.getInputStream(), size)
+                : productImporter.importJson(request.getInputStream(), size);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -1,24 +1,28 @@
 package com.eshop.product.controller;
 
-import com.eshop.product.entity.Product;
-import com.eshop.product.repository.ProductRepository;
+import com.eshop.product.image.ImagePipeline;
+import com.eshop.product.payload.ProductRequest;
+import com.eshop.product.payload.ProductResponse;
+import com.eshop.product.service.ProductService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.file.Path;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductUploadController {
 
-    private static final String UPLOAD_DIR = "uploads/products/";
-    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ImagePipeline imagePipeline;
 
-    public ProductUploadController(ProductRepository productRepository) {
-        this.productRepository = productRepository;
+    public ProductUploadController(ProductService productService,
+                                   ImagePipeline imagePipeline) {
+        this.productService = productService;
+        this.imagePipeline = imagePipeline;
     }
 
     @PostMapping("/add-with-images")
@@ -30,37 +34,29 @@ public class ProductUploadController {
             @RequestParam(value = "files", required = false) List<MultipartFile> files
     ) {
         try {
-            List<String> imageUrls = new ArrayList<>();
+            // Only stage the uploads here; resizing and hashing happen on the image pipeline
+            List<Path> staged = imagePipeline.stage(files);
 
-            // Ensure upload folder exists
-            Files.createDirectories(Paths.get(UPLOAD_DIR));
-
-            if (files != null && !files.isEmpty()) {
-                for (MultipartFile file : files) {
-                    if (!file.isEmpty()) {
-                        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-                        Path filePath = Paths.get(UPLOAD_DIR, fileName);
-                        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-                        // URL goes through API-Gateway (9191) but is served from product-service (9002)
-                        String imageUrl = "http://localhost:9191/uploads/products/" + fileName;
-                        imageUrls.add(imageUrl);
-                    }
-                }
+            // Same creation path as POST /api/products: search index, document cache and change feed
+            ProductRequest request = new ProductRequest();
+            request.setName(name);
+            request.setPrice(price);
+            request.setQuantity(quantity);
+            request.setCategoryId(categoryId);
+            ProductResponse product;
+            try {
+                product = productService.addProduct(request);
+            } catch (RuntimeException e) {
+                imagePipeline.discard(staged);
+                throw e;
             }
 
-            Product product = new Product();
-            product.setProductName(name);
-            product.setPrice(price);
-            product.setQuantity(quantity);
-            product.setCategoryId(categoryId);
-            product.setImageUrls(imageUrls);
-
-            productRepository.save(product);
+            imagePipeline.submit(product.getProductId(), staged);
 
             return ResponseEntity.ok(Map.of(
                     "message", "Product created successfully!",
-                    "product", product
+                    "product", product,
+                    "imagesPending", staged.size()
             ));
 
         } catch (IOException e) {
@@ -0,0 +1,34 @@
+package com.eshop.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One content-addressed image file under the blob store, with the number of
+ * {@code product_images} rows that point at it. Blobs that stay unreferenced past the grace
+ * period are reclaimed by the sweeper.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "image_blobs",
+        indexes = @Index(name = "idx_image_blobs_orphans", columnList = "refCount, updatedAt")
+)
+public class ImageBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+    @Column(length = 8)
+    private String extension;
+    private Long sizeBytes;
+    private Long refCount;
+    private Instant createdAt;
+    // Last time the blob was stored or its count changed; the sweeper's grace period starts here
+    private Instant updatedAt;
+}
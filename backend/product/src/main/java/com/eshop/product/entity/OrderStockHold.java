@@ -0,0 +1,41 @@
+package com.eshop.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Stock an order currently holds of one product. Written in the same transaction as the
+ * decrement and deleted with the matching increment, so a reduce or restore that the order
+ * service repeats for the same order is applied once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(OrderStockHold.Key.class)
+@Table(
+        name = "order_stock_holds",
+        indexes = @Index(name = "idx_order_stock_holds_created_at", columnList = "createdAt")
+)
+public class OrderStockHold {
+
+    @Id
+    private Long orderId;
+    @Id
+    private Long productId;
+    private Long quantity;
+    private Instant createdAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long orderId;
+        private Long productId;
+    }
+}
@@ -2,7 +2,10 @@ package com.eshop.product.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,7 +14,8 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(
-        name = "products"
+        name = "products",
+        indexes = @Index(name = "idx_products_category_updated", columnList = "categoryId, updatedAt")
 )
 public class Product {
     @Id
@@ -29,10 +33,24 @@ public class Product {
     private String description;
 
 
+    // Listings initialize image lists for up to 100 products per SELECT instead of one query per product
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
     private List<String> imageUrls = new ArrayList<>();
+
+    // Last modification time; drives incremental exports
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
@@ -0,0 +1,43 @@
+package com.eshop.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the product change feed: the product's price and stock right after a mutation,
+ * written in the same transaction as the mutation itself. {@code seq} orders the feed; it is a
+ * plain AUTO_INCREMENT value, and {@link com.eshop.product.changes.ProductChangeFeed} holds back
+ * entries above an uncommitted one.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "product_changes",
+        indexes = @Index(name = "idx_product_changes_changed_at", columnList = "changedAt")
+)
+public class ProductChange {
+    public static final String CREATED = "CREATED";
+    public static final String STOCK = "STOCK";
+    public static final String IMAGES = "IMAGES";
+
+    @Id
+    @GeneratedValue(
+            strategy = GenerationType.IDENTITY
+    )
+    private Long seq;
+    private Long productId;
+    private Long categoryId;
+    private Long price;
+    private Long quantity;
+    // stock change carried by this entry, null when the entry is not a stock movement
+    private Long quantityDelta;
+    @Column(length = 16)
+    private String changeType;
+    private Instant changedAt;
+}
@@ -0,0 +1,24 @@
+package com.eshop.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row ({@code id = 1}) recording how far retention may already have deleted the
+ * change feed. It is advanced before the delete, so a reader below it always gets 410 rather
+ * than a silent gap.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "product_change_retention")
+public class ProductChangeRetention {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+    private Long prunedThrough;
+}
@@ -0,0 +1,24 @@
+package com.eshop.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row ({@code id = 1}) recording the highest reservation journal segment whose
+ * changes are in {@code products.quantity}. It is written in the same transaction as the
+ * write-back, so segments at or below it are never applied twice.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "reservation_journal_state")
+public class ReservationJournalState {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+    private Long flushedSegment;
+}
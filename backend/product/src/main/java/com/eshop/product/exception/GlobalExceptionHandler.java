@@ -12,6 +12,17 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ProductServiceException.class)
     public ResponseEntity<ErrorDetail> handleProductServiceException(ProductServiceException ex) {
+        // INVALID_* codes are caller mistakes; everything else keeps the historical 404
+        if (ex.getStatusCode() != null && ex.getStatusCode().startsWith("INVALID_")) {
+            ErrorDetail errorDetail = new ErrorDetail(ex.getMessage(), ex.getStatusCode());
+            return new ResponseEntity<>(errorDetail, HttpStatus.BAD_REQUEST);
+        }
+        if ("CHANGES_EXPIRED".equals(ex.getStatusCode())) {
+            return new ResponseEntity<>(new ErrorDetail(ex.getMessage(), ex.getStatusCode()), HttpStatus.GONE);
+        }
+        if ("FACETS_NOT_READY".equals(ex.getStatusCode()) || "SEARCH_NOT_READY".equals(ex.getStatusCode())) {
+            return new ResponseEntity<>(new ErrorDetail(ex.getMessage(), ex.getStatusCode()), HttpStatus.SERVICE_UNAVAILABLE);
+        }
         ErrorDetail errorDetail = new ErrorDetail(ex.getMessage(), "NOT_FOUND");
         return new ResponseEntity<>(errorDetail, HttpStatus.NOT_FOUND);
     }
@@ -0,0 +1,195 @@
+package com.eshop.product.facets;
+
+import com.eshop.product.payload.FacetResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar copy of the fields facets are computed from: one primitive array per column, one
+ * slot per product. Categories are stored as dense ordinals so counting them is an index into
+ * an int array. A facet query is a single pass over the arrays that allocates nothing per row.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // ordinal key for products without a category
+    private static final long NO_CATEGORY = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private int[] categoryOrdinals = new int[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private int size;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    private long[] ordinalCategories = new long[64];
+    private int ordinalCount;
+    private final Map<Long, Integer> ordinalsByCategory = new HashMap<>();
+
+    private volatile boolean ready;
+    private volatile long appliedSeq;
+
+    /** Insert a product or overwrite its row with the given absolute values. */
+    public void upsert(long productId, Long categoryId, long price, long quantity) {
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.get(productId);
+            int row;
+            if (position != null) {
+                row = position;
+            } else {
+                ensureCapacity(size + 1);
+                row = size++;
+                productIds[row] = productId;
+                positions.put(productId, row);
+            }
+            categoryOrdinals[row] = ordinalOf(categoryId != null ? categoryId : NO_CATEGORY);
+            prices[row] = price;
+            quantities[row] = quantity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            positions.clear();
+            ordinalCount = 0;
+            ordinalsByCategory.clear();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Category counts, price histogram and in-stock count over the products matching the
+     * filters. {@code priceEdges} must be ascending; bucket i covers [edges[i], edges[i+1]) and
+     * the last one is open-ended.
+     */
+    public FacetResponse facets(Long categoryId, Long minPrice, Long maxPrice, boolean inStockOnly, long[] priceEdges) {
+        long min = minPrice != null ? minPrice : Long.MIN_VALUE;
+        long max = maxPrice != null ? maxPrice : Long.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            int filterOrdinal = -1;
+            if (categoryId != null) {
+                Integer ordinal = ordinalsByCategory.get(categoryId);
+                if (ordinal == null) {
+                    return new FacetResponse(0, 0, List.of(), buckets(priceEdges, new int[priceEdges.length]), appliedSeq);
+                }
+                filterOrdinal = ordinal;
+            }
+
+            int[] categoryCounts = new int[ordinalCount];
+            int[] bucketCounts = new int[priceEdges.length];
+            long total = 0;
+            long inStock = 0;
+            for (int i = 0; i < size; i++) {
+                if (filterOrdinal >= 0 && categoryOrdinals[i] != filterOrdinal) {
+                    continue;
+                }
+                long price = prices[i];
+                if (price < min || price > max) {
+                    continue;
+                }
+                boolean available = quantities[i] > 0;
+                if (inStockOnly && !available) {
+                    continue;
+                }
+                total++;
+                if (available) {
+                    inStock++;
+                }
+                categoryCounts[categoryOrdinals[i]]++;
+                int bucket = Arrays.binarySearch(priceEdges, price);
+                bucket = bucket >= 0 ? bucket : -bucket - 2; // index of the edge at or below price
+                if (bucket >= 0) {
+                    bucketCounts[bucket]++;
+                }
+            }
+
+            List<FacetResponse.CategoryCount> categories = new ArrayList<>();
+            for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+                if (categoryCounts[ordinal] > 0) {
+                    long category = ordinalCategories[ordinal];
+                    categories.add(new FacetResponse.CategoryCount(
+                            category == NO_CATEGORY ? null : category, categoryCounts[ordinal]));
+                }
+            }
+            categories.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+            return new FacetResponse(total, inStock, categories, buckets(priceEdges, bucketCounts), appliedSeq);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    long appliedSeq() {
+        return appliedSeq;
+    }
+
+    void setAppliedSeq(long appliedSeq) {
+        this.appliedSeq = appliedSeq;
+    }
+
+    private static List<FacetResponse.PriceBucket> buckets(long[] edges, int[] counts) {
+        List<FacetResponse.PriceBucket> buckets = new ArrayList<>(edges.length);
+        for (int i = 0; i < edges.length; i++) {
+            Long upper = i + 1 < edges.length ? edges[i + 1] : null;
+            buckets.add(new FacetResponse.PriceBucket(edges[i], upper, counts[i]));
+        }
+        return buckets;
+    }
+
+    private int ordinalOf(long categoryId) {
+        Integer ordinal = ordinalsByCategory.get(categoryId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (ordinalCount == ordinalCategories.length) {
+            ordinalCategories = Arrays.copyOf(ordinalCategories, ordinalCount * 2);
+        }
+        ordinalCategories[ordinalCount] = categoryId;
+        ordinalsByCategory.put(categoryId, ordinalCount);
+        return ordinalCount++;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= productIds.length) {
+            return;
+        }
+        int capacity = Math.max(needed, productIds.length + (productIds.length >> 1));
+        productIds = Arrays.copyOf(productIds, capacity);
+        categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+    }
+}
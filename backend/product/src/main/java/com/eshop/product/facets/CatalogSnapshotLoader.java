@@ -0,0 +1,106 @@
+package com.eshop.product.facets;
+
+import com.eshop.product.changes.ProductChangeFeed;
+import com.eshop.product.entity.ProductChange;
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.payload.ProductChangesResponse;
+import com.eshop.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds {@link CatalogSnapshot} from the products table once, then keeps it current by
+ * tailing the product change feed. The feed position is taken before the table is read: any
+ * change committed later has a higher sequence number (see {@link ProductChangeFeed}), so it is
+ * replayed even if the table scan missed it. Feed entries carry absolute values, so replaying an
+ * entry the initial load already saw is harmless.
+ */
+@Component
+public class CatalogSnapshotLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotLoader.class);
+
+    private final ProductRepository productRepository;
+    private final ProductChangeFeed changeFeed;
+    private final CatalogSnapshot snapshot;
+    private final int batchSize;
+
+    public CatalogSnapshotLoader(ProductRepository productRepository,
+                                 ProductChangeFeed changeFeed,
+                                 CatalogSnapshot snapshot,
+                                 @Value("${product.facets.batch-size:5000}") int batchSize) {
+        this.productRepository = productRepository;
+        this.changeFeed = changeFeed;
+        this.snapshot = snapshot;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Thread loader = new Thread(this::rebuild, "catalog-snapshot-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            snapshot.clear();
+            // committed watermark: everything after it is replayed from the feed, in commit order
+            long head = changeFeed.head();
+            long after = 0L;
+            while (true) {
+                List<ProductRepository.FacetRow> rows = productRepository.findFacetRows(after, Limit.of(batchSize));
+                for (ProductRepository.FacetRow row : rows) {
+                    snapshot.upsert(row.getProductId(), row.getCategoryId(), valueOf(row.getPrice()), valueOf(row.getQuantity()));
+                }
+                if (rows.size() < batchSize) {
+                    break;
+                }
+                after = rows.get(rows.size() - 1).getProductId();
+            }
+            snapshot.setAppliedSeq(head);
+            snapshot.markReady();
+            log.info("Catalog snapshot ready with {} products in {} ms", snapshot.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Catalog snapshot load failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.facets.refresh-interval-ms:1000}")
+    public void refresh() {
+        // checked outside the lock so this scheduler thread never waits on an initial load
+        if (!snapshot.isReady()) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                ProductChangesResponse page;
+                do {
+                    page = changeFeed.read(snapshot.appliedSeq(), batchSize);
+                    for (ProductChange change : page.getChanges()) {
+                        snapshot.upsert(change.getProductId(), change.getCategoryId(),
+                                valueOf(change.getPrice()), valueOf(change.getQuantity()));
+                    }
+                    snapshot.setAppliedSeq(page.getNextSince());
+                } while (page.isHasMore());
+            } catch (ProductServiceException e) {
+                // fell behind the feed's retention: start over from the table
+                log.warn("Catalog snapshot lost its change feed position, rebuilding: {}", e.getMessage());
+                rebuild();
+            }
+        }
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,189 @@
+package com.eshop.product.image;
+
+import com.eshop.product.repository.ImageBlobRepository;
+import com.eshop.product.utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage. A file with SHA-256 {@code abcd…} lives at
+ * {@code <root>/ab/cd/abcd….<ext>}, its variants next to it as {@code abcd…_<suffix>.jpg}; two
+ * levels of 256 shards keep every directory small. Each blob has a row in {@code image_blobs}
+ * counting the {@code product_images} rows that reference it, plus the image jobs still holding
+ * it between store and attach.
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final Pattern BLOB_URL = Pattern.compile("/blobs/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(\\.[a-z0-9]+)?$");
+    private static final int LOCK_STRIPES = 64;
+
+    private final ImageBlobRepository blobRepository;
+    private final TransactionTemplate fileDeletion;
+    private final Path root;
+    private final String publicBaseUrl;
+    // Serializes storing and sweeping of the same hash within this instance
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public BlobStore(ImageBlobRepository blobRepository,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${product.images.blob-root:uploads/blobs}") String root,
+                     @Value("${product.images.public-base-url:http://localhost:9191/uploads/blobs/}") String publicBaseUrl) throws IOException {
+        this.blobRepository = blobRepository;
+        this.fileDeletion = new TransactionTemplate(transactionManager);
+        this.fileDeletion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.root = Paths.get(root);
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        Files.createDirectories(this.root);
+    }
+
+    /** Compute the content hash of a staged file. */
+    public String hash(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Store a staged file under its hash unless that content is already present. The writer
+     * renders the variants into the blob's directory; the original is moved in last, so its
+     * presence means the blob is complete. Content stored before under another extension keeps
+     * that one, so the same bytes never get a second original file or URL.
+     * <p>
+     * The returned URL carries one reference for the caller, counted in the same transaction, so
+     * the sweeper cannot reclaim the blob before the caller has attached it to a product. The
+     * caller hands that reference on to the product or gives it back with {@link #release}.
+     */
+    @Transactional
+    public String store(String hash, String extension, Path staged, VariantWriter variants) throws IOException {
+        synchronized (lockFor(hash)) {
+            Instant now = Instant.now();
+            blobRepository.upsert(hash, extension, Files.size(staged), now);
+            blobRepository.addReferences(hash, 1, now);
+            String storedExtension = blobRepository.findExtension(hash).orElse(extension);
+            Path original = path(hash, "", storedExtension);
+            if (!Files.exists(original)) {
+                Files.createDirectories(original.getParent());
+                variants.write(original.getParent(), hash);
+                Files.move(staged, original, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return url(hash, storedExtension);
+        }
+    }
+
+    /** Count new {@code product_images} references; URLs outside the blob store are ignored. */
+    @Transactional
+    public void retain(Collection<String> imageUrls) {
+        Instant now = Instant.now();
+        countByHash(imageUrls).forEach((hash, count) -> blobRepository.addReferences(hash, count, now));
+    }
+
+    /** Give back references taken by {@link #store} or {@link #retain} that nothing holds any more. */
+    @Transactional
+    public void release(Collection<String> imageUrls) {
+        Instant now = Instant.now();
+        countByHash(imageUrls).forEach((hash, count) -> blobRepository.removeReferences(hash, count, now));
+    }
+
+    private static Map<String, Long> countByHash(Collection<String> imageUrls) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String url : imageUrls) {
+            String hash = hashOf(url);
+            if (hash != null) {
+                counts.merge(hash, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Remove an orphaned blob's row, and its files once that delete has committed. Returns false
+     * when it was referenced or stored again since it was selected.
+     */
+    @Transactional
+    public boolean reclaim(String hash, String extension, Instant orphanedBefore) {
+        synchronized (lockFor(hash)) {
+            if (blobRepository.deleteIfOrphaned(hash, orphanedBefore) == 0) {
+                return false;
+            }
+            AfterCommit.run(() -> deleteFiles(hash, extension));
+            return true;
+        }
+    }
+
+    // A store of the same hash may have slipped in after the delete committed; its row (committed
+    // or still pending, which the locking read waits for) means the files are in use again.
+    private void deleteFiles(String hash, String extension) {
+        synchronized (lockFor(hash)) {
+            try {
+                fileDeletion.executeWithoutResult(status -> {
+                    if (blobRepository.lockByHash(hash) > 0) {
+                        return;
+                    }
+                    try {
+                        Files.deleteIfExists(path(hash, "", extension));
+                        for (ImageVariant variant : ImageVariant.values()) {
+                            Files.deleteIfExists(path(hash, "_" + variant.getSuffix(), ".jpg"));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not delete the files of reclaimed image blob {}", hash, e);
+            }
+        }
+    }
+
+    public String url(String hash, String extension) {
+        return publicBaseUrl + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extension;
+    }
+
+    private Path path(String hash, String suffix, String extension) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + suffix + extension);
+    }
+
+    private static String hashOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = BLOB_URL.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    /** Renders the variants of a new blob into its shard directory. */
+    @FunctionalInterface
+    public interface VariantWriter {
+        void write(Path directory, String hash) throws IOException;
+    }
+}
@@ -0,0 +1,61 @@
+package com.eshop.product.image;
+
+import com.eshop.product.entity.ImageBlob;
+import com.eshop.product.repository.ImageBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reclaims blobs that no product references. Candidates come from the {@code image_blobs}
+ * index rather than a directory walk, so each pass costs at most one batch of rows no matter
+ * how many images are stored.
+ */
+@Component
+public class BlobSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobSweeper.class);
+
+    private final ImageBlobRepository blobRepository;
+    private final BlobStore blobStore;
+    private final Duration gracePeriod;
+    private final int batchSize;
+
+    public BlobSweeper(ImageBlobRepository blobRepository,
+                       BlobStore blobStore,
+                       @Value("${product.images.sweeper.grace-period:24h}") Duration gracePeriod,
+                       @Value("${product.images.sweeper.batch-size:500}") int batchSize) {
+        this.blobRepository = blobRepository;
+        this.blobStore = blobStore;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${product.images.sweeper.interval-ms:3600000}",
+            initialDelayString = "${product.images.sweeper.interval-ms:3600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        List<ImageBlob> orphans = blobRepository.findByRefCountAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+                0L, cutoff, Limit.of(batchSize));
+        int reclaimed = 0;
+        for (ImageBlob blob : orphans) {
+            try {
+                if (blobStore.reclaim(blob.getHash(), blob.getExtension(), cutoff)) {
+                    reclaimed++;
+                }
+            } catch (Exception e) {
+                log.warn("Could not reclaim image blob {}", blob.getHash(), e);
+            }
+        }
+        if (reclaimed > 0) {
+            log.info("Reclaimed {} orphaned image blobs", reclaimed);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.eshop.product.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Byte-bounded LRU of small image files (thumbnails) kept in heap, so the listing pages that
+ * request dozens of them do not touch the filesystem. Entries are keyed by path and size plus
+ * modification time, so a replaced file is never served stale.
+ */
+@Component
+public class HotImageCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Path, CachedImage> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotImageCache(MeterRegistry meterRegistry,
+                         @Value("${product.images.hot-cache.max-size:16MB}") DataSize maxSize,
+                         @Value("${product.images.hot-cache.max-entry-size:64KB}") DataSize maxEntrySize) {
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.hits = Counter.builder("product.images.hot-cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("product.images.hot-cache.misses").register(meterRegistry);
+        Gauge.builder("product.images.hot-cache.bytes", this, HotImageCache::totalBytes).register(meterRegistry);
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes;
+    }
+
+    public byte[] get(Path path, long size, long lastModified) {
+        synchronized (entries) {
+            CachedImage entry = entries.get(path);
+            if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+                hits.increment();
+                return entry.content();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Path path, long lastModified, byte[] content) {
+        if (!accepts(content.length)) {
+            return;
+        }
+        synchronized (entries) {
+            CachedImage previous = entries.put(path, new CachedImage(content, content.length, lastModified));
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += content.length;
+            Iterator<Map.Entry<Path, CachedImage>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    public long totalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private record CachedImage(byte[] content, long size, long lastModified) {
+    }
+}
@@ -0,0 +1,380 @@
+package com.eshop.product.image;
+
+import com.eshop.product.cache.ProductDocumentCache;
+import com.eshop.product.entity.ProductChange;
+import com.eshop.product.repository.ProductChangeRepository;
+import com.eshop.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background processing of uploaded product images.
+ * <p>
+ * The request thread only stages the multipart files into a temp directory and hands them off.
+ * A bounded worker pool then stores each image in the {@link BlobStore} (identical uploads share
+ * one blob), renders the {@link ImageVariant}s and appends the image URL to the product. When the
+ * queue is full the uploading thread processes its own job, which throttles uploads instead of
+ * dropping them.
+ * <p>
+ * Every job is also written to a manifest in the staging directory ({@code job-*.job}: the
+ * product id, the staged files, then the URL of each file once stored) and removed when the job
+ * ends. Jobs still queued or running when the instance stops are picked up from their manifests
+ * at the next start; staged files no manifest refers to are swept then too. The staging
+ * directory is therefore private to one instance.
+ * <p>
+ * Each stored file holds a blob reference from the moment it is stored, so a job whose attach
+ * failed keeps its blobs safe from the {@link BlobSweeper} until it is recovered. Attaching hands
+ * the reference to the product. A first run gives back the references it cannot hand on, for
+ * an image the product already has or a product that is gone. A recovered job cannot tell
+ * whether an earlier run already attached its images, so it keeps them; a crash can leak a
+ * reference that way, but never lets a referenced blob be reclaimed.
+ */
+@Component
+public class ImagePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagePipeline.class);
+    private static final String UPLOAD_PREFIX = "upload-";
+    private static final String JOB_PREFIX = "job-";
+    private static final String JOB_SUFFIX = ".job";
+
+    private final ProductRepository productRepository;
+    private final BlobStore blobStore;
+    private final ProductDocumentCache documentCache;
+    private final ProductChangeRepository changeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path stagingDirectory;
+    private final Duration orphanAge;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+    private final Timer processingTimer;
+    private final Counter failures;
+
+    public ImagePipeline(ProductRepository productRepository,
+                         BlobStore blobStore,
+                         ProductDocumentCache documentCache,
+                         ProductChangeRepository changeRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${product.images.staging-dir:uploads/tmp}") String stagingDirectory,
+                         @Value("${product.images.staging-orphan-age:1h}") Duration orphanAge,
+                         @Value("${product.images.max-pixels:40000000}") long maxPixels,
+                         @Value("${product.images.workers:2}") int workerCount,
+                         @Value("${product.images.queue-capacity:100}") int queueCapacity) throws IOException {
+        this.productRepository = productRepository;
+        this.blobStore = blobStore;
+        this.documentCache = documentCache;
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stagingDirectory = Paths.get(stagingDirectory);
+        Files.createDirectories(this.stagingDirectory);
+        this.orphanAge = orphanAge;
+        this.maxPixels = maxPixels;
+
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.processingTimer = Timer.builder("product.images.processing").register(meterRegistry);
+        this.failures = Counter.builder("product.images.failures").register(meterRegistry);
+        Gauge.builder("product.images.queue.depth", workers, pool -> pool.getQueue().size()).register(meterRegistry);
+    }
+
+    /** Move the uploaded files out of the request into the staging directory. */
+    public List<Path> stage(List<MultipartFile> files) throws IOException {
+        List<Path> staged = new ArrayList<>();
+        if (files == null) {
+            return staged;
+        }
+        try {
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) {
+                    continue;
+                }
+                Path target = Files.createTempFile(stagingDirectory, UPLOAD_PREFIX, extensionOf(file.getOriginalFilename()));
+                staged.add(target);
+                file.transferTo(target); // a rename for disk-backed parts, a buffered copy otherwise
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+        return staged;
+    }
+
+    /** Delete staged files that will not be submitted, e.g. because creating the product failed. */
+    public void discard(List<Path> stagedFiles) {
+        stagedFiles.forEach(this::deleteQuietly);
+    }
+
+    /** Process the staged files in the background and attach them to the product when done. */
+    public void submit(Long productId, List<Path> stagedFiles) throws IOException {
+        if (stagedFiles.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(String.valueOf(productId));
+        stagedFiles.forEach(file -> lines.add("file " + file.getFileName()));
+        Path manifest = stagingDirectory.resolve(JOB_PREFIX + UUID.randomUUID() + JOB_SUFFIX);
+        try {
+            Files.write(manifest, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            discard(stagedFiles);
+            throw e;
+        }
+        enqueue(new Job(manifest, productId, stagedFiles, List.of(), false));
+    }
+
+    private void enqueue(Job job) {
+        workers.execute(() -> processingTimer.record(() -> process(job)));
+    }
+
+    private void process(Job job) {
+        List<String> urls = new ArrayList<>(job.storedUrls());
+        for (Path staged : job.stagedFiles()) {
+            if (!Files.exists(staged)) {
+                continue; // stored by an earlier run of this job, its URL is in storedUrls
+            }
+            try {
+                String url = store(staged);
+                urls.add(url);
+                Files.write(job.manifest(), List.of("url " + url), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } catch (Exception e) {
+                failures.increment();
+                log.error("Processing image {} for product {} failed", staged.getFileName(), job.productId(), e);
+            } finally {
+                deleteQuietly(staged);
+            }
+        }
+        if (!urls.isEmpty()) {
+            try {
+                attach(job, urls);
+            } catch (RuntimeException e) {
+                // keep the manifest: the URLs are attached when the job is recovered at the next start
+                failures.increment();
+                log.error("Attaching {} image(s) to product {} failed", urls.size(), job.productId(), e);
+                return;
+            }
+        }
+        deleteQuietly(job.manifest());
+    }
+
+    /** Store the image in the blob store, rendering its variants the first time; returns its URL. */
+    private String store(Path staged) throws IOException {
+        checkDimensions(staged);
+        String hash = blobStore.hash(staged);
+        String extension = extensionOf(staged.getFileName().toString());
+        return blobStore.store(hash, extension, staged, (directory, name) -> {
+            BufferedImage image = ImageIO.read(staged.toFile());
+            if (image == null) {
+                return; // not a format ImageIO can decode: keep the original only
+            }
+            for (ImageVariant variant : ImageVariant.values()) {
+                Path target = directory.resolve(name + "_" + variant.getSuffix() + ".jpg");
+                ImageIO.write(resize(image, variant.getMaxSize()), "jpg", target.toFile());
+            }
+        });
+    }
+
+    // Reads only the header: a small file can still declare billions of pixels, which decoding would allocate
+    private void checkDimensions(Path staged) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(staged.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return; // not a format ImageIO can decode: stored as is, no variants
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image has " + pixels + " pixels, more than the limit of " + maxPixels);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Every URL in urls carries the reference its store took; added ones pass it to the product
+    private void attach(Job job, List<String> urls) {
+        Long productId = job.productId();
+        transactionTemplate.executeWithoutResult(status -> productRepository.findById(productId).ifPresentOrElse(
+                product -> {
+                    // a recovered job may repeat URLs attached before the instance stopped
+                    List<String> added = urls.stream()
+                            .distinct()
+                            .filter(url -> !product.getImageUrls().contains(url))
+                            .toList();
+                    if (!job.recovered()) {
+                        List<String> unused = new ArrayList<>(urls);
+                        added.forEach(unused::remove);
+                        blobStore.release(unused);
+                    }
+                    if (added.isEmpty()) {
+                        return;
+                    }
+                    product.getImageUrls().addAll(added);
+                    product.setUpdatedAt(Instant.now());
+                    changeRepository.record(productId, ProductChange.IMAGES, null, Instant.now());
+                },
+                () -> {
+                    log.warn("Product {} disappeared before its images were processed", productId);
+                    if (!job.recovered()) {
+                        blobStore.release(urls);
+                    }
+                }));
+        documentCache.evict(productId);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // JPEG has no alpha channel: draw onto an opaque RGB canvas
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot).toLowerCase(Locale.ROOT) : "";
+        // only keep short alphanumeric extensions; never let client input shape the path
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+
+    /**
+     * Requeue the jobs an earlier run left behind and delete staged files none of them refers to.
+     * Files younger than {@code staging-orphan-age} are left alone: they may belong to an upload
+     * this instance is staging right now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        Set<Path> referenced = new HashSet<>();
+        List<Job> jobs = new ArrayList<>();
+        try (Stream<Path> manifests = Files.list(stagingDirectory)) {
+            for (Path manifest : manifests.filter(ImagePipeline::isManifest).toList()) {
+                try {
+                    Job job = readJob(manifest);
+                    referenced.addAll(job.stagedFiles());
+                    jobs.add(job);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Dropping unreadable image job {}", manifest.getFileName(), e);
+                    deleteQuietly(manifest);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list staging directory {}", stagingDirectory, e);
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(orphanAge);
+        int swept = 0;
+        try (Stream<Path> files = Files.list(stagingDirectory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith(UPLOAD_PREFIX)).toList()) {
+                if (!referenced.contains(file) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(file);
+                    swept++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep staging directory {}", stagingDirectory, e);
+        }
+
+        jobs.forEach(this::enqueue);
+        if (!jobs.isEmpty() || swept > 0) {
+            log.info("Requeued {} unfinished image job(s), deleted {} orphaned staged upload(s)", jobs.size(), swept);
+        }
+    }
+
+    private Job readJob(Path manifest) throws IOException {
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        Long productId = Long.valueOf(lines.get(0).trim());
+        List<Path> stagedFiles = new ArrayList<>();
+        List<String> storedUrls = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.startsWith("file ")) {
+                // resolve the bare name only, so a manifest can never point outside the staging directory
+                stagedFiles.add(stagingDirectory.resolve(Paths.get(line.substring(5)).getFileName()));
+            } else if (line.startsWith("url ")) {
+                storedUrls.add(line.substring(4));
+            }
+        }
+        return new Job(manifest, productId, stagedFiles, storedUrls, true);
+    }
+
+    private static boolean isManifest(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(JOB_PREFIX) && name.endsWith(JOB_SUFFIX);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete staged file {}", file, e);
+        }
+    }
+
+    /**
+     * Lets queued jobs run for up to 30 seconds; whatever is still queued or running after that
+     * keeps its manifest and is recovered at the next start.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} image job(s) still pending at shutdown; they resume at the next start", workers.getQueue().size() + workers.getActiveCount());
+        }
+    }
+
+    private record Job(Path manifest, Long productId, List<Path> stagedFiles, List<String> storedUrls,
+                       boolean recovered) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.eshop.product.image;
+
+/**
+ * Resized renditions generated for every uploaded product image. The longest side is scaled
+ * down to {@code maxSize}; images that are already smaller are not enlarged.
+ */
+public enum ImageVariant {
+    THUMBNAIL("thumb", 200),
+    CARD("card", 480),
+    DETAIL("detail", 1200);
+
+    private final String suffix;
+    private final int maxSize;
+
+    ImageVariant(String suffix, int maxSize) {
+        this.suffix = suffix;
+        this.maxSize = maxSize;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,131 @@
+package com.eshop.product.importer;
+
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.payload.ProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads RFC 4180 CSV with a header row. Recognized columns (any order, case-insensitive):
+ * name, price, quantity, categoryId, description and imageUrls, the latter separated by '|'.
+ */
+class CsvImportReader implements ImportReader {
+
+    private static final List<String> COLUMNS = List.of("name", "price", "quantity", "categoryid", "description", "imageurls");
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private long row;
+
+    CsvImportReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new ProductServiceException("CSV import needs a header row", "INVALID_IMPORT");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (COLUMNS.contains(column)) {
+                positions.put(column, i);
+            }
+        }
+        if (!positions.containsKey("name")) {
+            throw new ProductServiceException("CSV header must contain a name column", "INVALID_IMPORT");
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+
+        row++;
+        try {
+            ProductRequest request = new ProductRequest();
+            request.setName(field(record, "name"));
+            request.setPrice(number(record, "price"));
+            request.setQuantity(number(record, "quantity"));
+            request.setCategoryId(number(record, "categoryid"));
+            request.setDescription(field(record, "description"));
+            String images = field(record, "imageurls");
+            if (images != null) {
+                request.setImageUrls(Arrays.asList(images.split("\\|")));
+            }
+            return ImportRow.ok(row, request);
+        } catch (NumberFormatException e) {
+            return ImportRow.failed(row, "Invalid number: " + e.getMessage());
+        }
+    }
+
+    private String field(List<String> record, String column) {
+        Integer position = positions.get(column);
+        if (position == null || position >= record.size()) {
+            return null;
+        }
+        String value = record.get(position).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Long number(List<String> record, String column) {
+        String value = field(record, column);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    /** One record, honoring quoted fields with embedded commas, quotes and line breaks. */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
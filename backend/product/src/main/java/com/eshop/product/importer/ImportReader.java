@@ -0,0 +1,13 @@
+package com.eshop.product.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pulls products from an import body one at a time, so memory does not grow with the upload.
+ */
+interface ImportReader extends Closeable {
+
+    /** The next row, or null at the end of the input. */
+    ImportRow next() throws IOException;
+}
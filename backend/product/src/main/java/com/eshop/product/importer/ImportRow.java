@@ -0,0 +1,18 @@
+package com.eshop.product.importer;
+
+import com.eshop.product.payload.ProductRequest;
+
+/**
+ * One parsed product of an import; {@code error} is set instead of {@code request} when the
+ * row could not be parsed.
+ */
+record ImportRow(long row, ProductRequest request, String error) {
+
+    static ImportRow ok(long row, ProductRequest request) {
+        return new ImportRow(row, request, null);
+    }
+
+    static ImportRow failed(long row, String error) {
+        return new ImportRow(row, null, error);
+    }
+}
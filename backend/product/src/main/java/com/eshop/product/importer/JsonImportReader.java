@@ -0,0 +1,55 @@
+package com.eshop.product.importer;
+
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.payload.ProductRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a JSON array of {@link ProductRequest} objects with the streaming parser; only the
+ * current element is ever materialized.
+ */
+class JsonImportReader implements ImportReader {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private long row;
+
+    JsonImportReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new ProductServiceException("Import body must be a JSON array of products", "INVALID_IMPORT");
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        row++;
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return ImportRow.failed(row, "Expected a JSON object");
+        }
+        JsonNode node = parser.readValueAsTree();
+        try {
+            return ImportRow.ok(row, objectMapper.treeToValue(node, ProductRequest.class));
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(row, e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,264 @@
+package com.eshop.product.importer;
+
+import com.eshop.product.cache.CategoryCache;
+import com.eshop.product.entity.Product;
+import com.eshop.product.entity.ProductChange;
+import com.eshop.product.image.BlobStore;
+import com.eshop.product.payload.CategoryResponse;
+import com.eshop.product.payload.ProductImportResponse;
+import com.eshop.product.payload.ProductRequest;
+import com.eshop.product.repository.ProductChangeRepository;
+import com.eshop.product.search.IndexedProduct;
+import com.eshop.product.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import. Rows are parsed incrementally and written in chunks, one transaction and
+ * one JDBC batch per table per chunk. A chunk that fails is replayed row by row so that only the
+ * offending rows are reported and everything else still lands.
+ * <p>
+ * IDENTITY ids stay: Hibernate cannot batch IDENTITY inserts, but a plain JDBC batch can, and
+ * MySQL Connector/J returns the generated key of every row of a (rewritten) batch.
+ */
+@Component
+public class ProductImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImporter.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_IMAGE_URL_LENGTH = 255;
+
+    private static final String INSERT_PRODUCT = "insert into products "
+            + "(product_name, price, quantity, category_id, description, updated_at) values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE = "insert into product_images (product_id, image_url) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlobStore blobStore;
+    private final CategoryCache categoryCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductChangeRepository changeRepository;
+
+    public ProductImporter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           BlobStore blobStore,
+                           CategoryCache categoryCache,
+                           ProductSearchIndex searchIndex,
+                           ProductChangeRepository changeRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.blobStore = blobStore;
+        this.categoryCache = categoryCache;
+        this.searchIndex = searchIndex;
+        this.changeRepository = changeRepository;
+    }
+
+    public ProductImportResponse importJson(InputStream in, int chunkSize) throws IOException {
+        try (ImportReader reader = new JsonImportReader(objectMapper, in)) {
+            return run(reader, chunkSize);
+        }
+    }
+
+    public ProductImportResponse importCsv(InputStream in, int chunkSize) throws IOException {
+        try (ImportReader reader = new CsvImportReader(in)) {
+            return run(reader, chunkSize);
+        }
+    }
+
+    private ProductImportResponse run(ImportReader reader, int chunkSize) throws IOException {
+        ProductImportResponse report = new ProductImportResponse();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try {
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                report.setReceived(report.getReceived() + 1);
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    fail(report, row.row(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // a syntax error leaves the stream unreadable: keep what was imported and stop
+            fail(report, report.getReceived() + 1, "Malformed input, import stopped: " + e.getOriginalMessage());
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, report);
+        }
+        log.info("Product import finished: {} received, {} imported, {} failed",
+                report.getReceived(), report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ProductImportResponse report) {
+        try {
+            List<Product> inserted = transactionTemplate.execute(status -> insert(chunk));
+            afterImport(inserted);
+            report.setImported(report.getImported() + inserted.size());
+        } catch (RuntimeException chunkFailure) {
+            // find the offending rows; the others are written one transaction each
+            for (ImportRow row : chunk) {
+                try {
+                    List<Product> inserted = transactionTemplate.execute(status -> insert(List.of(row)));
+                    afterImport(inserted);
+                    report.setImported(report.getImported() + 1);
+                } catch (RuntimeException e) {
+                    fail(report, row.row(), rootMessage(e));
+                }
+            }
+        }
+    }
+
+    private List<Product> insert(List<ImportRow> rows) {
+        Instant now = Instant.now();
+        Timestamp updatedAt = Timestamp.from(now);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductRequest request = rows.get(i).request();
+                        ps.setString(1, request.getName().trim());
+                        ps.setLong(2, request.getPrice());
+                        ps.setLong(3, request.getQuantity());
+                        ps.setLong(4, request.getCategoryId());
+                        if (request.getDescription() != null) {
+                            ps.setString(5, request.getDescription());
+                        } else {
+                            ps.setNull(5, Types.LONGVARCHAR);
+                        }
+                        ps.setTimestamp(6, updatedAt);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<Product> products = new ArrayList<>(rows.size());
+        List<Object[]> images = new ArrayList<>();
+        List<String> imageUrls = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ProductRequest request = rows.get(i).request();
+            Product product = new Product();
+            product.setProductId(((Number) generated.get(i).values().iterator().next()).longValue());
+            product.setProductName(request.getName().trim());
+            product.setPrice(request.getPrice());
+            product.setQuantity(request.getQuantity());
+            product.setCategoryId(request.getCategoryId());
+            product.setDescription(request.getDescription());
+            product.setUpdatedAt(now);
+            product.setImageUrls(cleanImageUrls(request.getImageUrls()));
+            for (String url : product.getImageUrls()) {
+                images.add(new Object[]{product.getProductId(), url});
+                imageUrls.add(url);
+            }
+            products.add(product);
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+            blobStore.retain(imageUrls);
+        }
+        changeRepository.recordAll(products.stream().map(Product::getProductId).toList(), ProductChange.CREATED, now);
+        return products;
+    }
+
+    private void afterImport(List<Product> products) {
+        Set<Long> categoryIds = new HashSet<>();
+        products.forEach(product -> categoryIds.add(product.getCategoryId()));
+        Map<Long, CategoryResponse> categories = categoryCache.getAll(categoryIds);
+
+        List<IndexedProduct> indexed = new ArrayList<>(products.size());
+        for (Product product : products) {
+            CategoryResponse category = categories.get(product.getCategoryId());
+            indexed.add(IndexedProduct.of(product, category != null ? category.getName() : null));
+        }
+        searchIndex.indexAll(indexed);
+    }
+
+    private static String validate(ProductRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "name is required";
+        }
+        if (request.getName().trim().length() > MAX_NAME_LENGTH) {
+            return "name is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        if (request.getPrice() == null || request.getPrice() < 0) {
+            return "price must be zero or positive";
+        }
+        if (request.getQuantity() == null || request.getQuantity() < 0) {
+            return "quantity must be zero or positive";
+        }
+        if (request.getCategoryId() == null) {
+            return "categoryId is required";
+        }
+        for (String url : cleanImageUrls(request.getImageUrls())) {
+            if (url.length() > MAX_IMAGE_URL_LENGTH) {
+                return "image URL is longer than " + MAX_IMAGE_URL_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    // Same clean-up as addProduct: trimmed, non-empty, distinct
+    private static List<String> cleanImageUrls(List<String> urls) {
+        if (urls == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(urls.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    private static void fail(ProductImportResponse report, long row, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ProductImportResponse.RowError(row, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
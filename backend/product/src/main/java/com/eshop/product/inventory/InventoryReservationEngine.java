@@ -0,0 +1,305 @@
+package com.eshop.product.inventory;
+
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.entity.ProductChange;
+import com.eshop.product.repository.ProductChangeRepository;
+import com.eshop.product.repository.ProductRepository;
+import com.eshop.product.repository.ReservationJournalStateRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory stock reservation for hot SKUs (product.inventory.reservation.enabled).
+ * <p>
+ * Available stock is held in one atomic counter per product, loaded from the database on first
+ * use, so granting a reservation is a CAS plus a journal append instead of a row lock.
+ * Accumulated changes are written back to {@code products.quantity} in one transaction every
+ * flush interval, or sooner once {@code flush-threshold} units are pending.
+ * <p>
+ * Every change is appended to {@link ReservationJournal} before it is acknowledged. Each flush
+ * stores the number of the last segment it covers in {@code reservation_journal_state}, in the
+ * write-back transaction itself; on startup only segments above that number are replayed, so a
+ * crash between the database commit and the segment delete never applies a flush twice.
+ * <p>
+ * The counters are authoritative for the products they track, so this mode assumes a single
+ * product-service instance owns stock writes.
+ */
+@Component
+public class InventoryReservationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationEngine.class);
+
+    private final ProductRepository productRepository;
+    private final ProductChangeRepository changeRepository;
+    private final ReservationJournalStateRepository journalStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path journalDirectory;
+    private final boolean fsync;
+    private final long flushThreshold;
+
+    private final ConcurrentHashMap<Long, AtomicLong> available = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicLong> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingUnits = new AtomicLong();
+
+    // reservations share the read lock; a flush takes the write lock only to cut a consistent snapshot
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final List<Path> unflushedSegments = new ArrayList<>();
+    private final ExecutorService thresholdFlusher = Executors.newSingleThreadExecutor();
+
+    private ReservationJournal journal;
+
+    public InventoryReservationEngine(ProductRepository productRepository,
+                                      ProductChangeRepository changeRepository,
+                                      ReservationJournalStateRepository journalStateRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${product.inventory.reservation.enabled:false}") boolean enabled,
+                                      @Value("${product.inventory.reservation.journal-dir:data/reservations}") String journalDirectory,
+                                      @Value("${product.inventory.reservation.fsync:false}") boolean fsync,
+                                      @Value("${product.inventory.reservation.flush-threshold:1000}") long flushThreshold) {
+        this.productRepository = productRepository;
+        this.changeRepository = changeRepository;
+        this.journalStateRepository = journalStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.journalDirectory = Paths.get(journalDirectory);
+        this.fsync = fsync;
+        this.flushThreshold = flushThreshold;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long flushedSegment = journalStateRepository.findFlushedSegment().orElse(-1L);
+        journal = new ReservationJournal(journalDirectory, fsync, flushedSegment);
+        recover(flushedSegment);
+        journal.rotate();
+        log.info("In-memory stock reservation enabled, journal in {}", journalDirectory.toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take {@code quantity} units of a product, failing fast when not enough stock is left.
+     * Inside a transaction the grant is undone if that transaction rolls back.
+     */
+    public void reserve(Long productId, long quantity) {
+        take(productId, quantity);
+        undoOnRollback(Map.of(productId, -quantity));
+    }
+
+    /** Give back units taken by {@link #reserve}; undone as well if the caller's transaction rolls back. */
+    public void release(Long productId, long quantity) {
+        adjust(productId, quantity);
+        undoOnRollback(Map.of(productId, quantity));
+    }
+
+    /** All-or-nothing reservation; products are taken in ascending id order. */
+    public void reserveAll(SortedMap<Long, Long> quantities) {
+        Map<Long, Long> taken = new LinkedHashMap<>();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                take(productId, quantity);
+                taken.put(productId, -quantity);
+            });
+        } catch (RuntimeException e) {
+            taken.forEach((productId, delta) -> adjust(productId, -delta));
+            throw e;
+        }
+        undoOnRollback(taken);
+    }
+
+    private void take(Long productId, long quantity) {
+        AtomicLong counter = counterFor(productId);
+        while (true) {
+            long current = counter.get();
+            if (current < quantity) {
+                throw new ProductServiceException("Insufficient quantity for product id: " + productId, "INSUFFICIENT_QUANTITY");
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                break;
+            }
+        }
+        try {
+            record(productId, -quantity);
+        } catch (RuntimeException e) {
+            counter.addAndGet(quantity);
+            throw e;
+        }
+    }
+
+    private void adjust(Long productId, long delta) {
+        counterFor(productId).addAndGet(delta);
+        record(productId, delta);
+    }
+
+    // Counters and journal change at once, but the change belongs to the caller's transaction
+    // (e.g. the order_stock_holds row next to it): when that rolls back, journal the opposite
+    private void undoOnRollback(Map<Long, Long> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    deltas.forEach((productId, delta) -> adjust(productId, -delta));
+                } else if (status == STATUS_UNKNOWN) {
+                    // undoing a change that did commit would oversell; keep it and say so
+                    log.error("Commit outcome unknown; in-memory stock changes {} kept as applied", deltas);
+                }
+            }
+        });
+    }
+
+    /** In-memory available stock, or null when the product is not tracked here. */
+    public Long availableQuantity(Long productId) {
+        AtomicLong counter = available.get(productId);
+        return counter != null ? counter.get() : null;
+    }
+
+    private AtomicLong counterFor(Long productId) {
+        return available.computeIfAbsent(productId, id -> new AtomicLong(
+                productRepository.findQuantityById(id)
+                        .orElseThrow(() -> new ProductServiceException("Product not found with id: " + id, "PRODUCT_NOT_FOUND"))));
+    }
+
+    private void record(Long productId, long delta) {
+        snapshotLock.readLock().lock();
+        try {
+            journal.append(productId, delta);
+            pending.computeIfAbsent(productId, id -> new AtomicLong()).addAndGet(delta);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal stock change for product " + productId, e);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        if (pendingUnits.addAndGet(Math.abs(delta)) >= flushThreshold) {
+            thresholdFlusher.execute(this::flush);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.inventory.reservation.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            Map<Long, Long> batch = new TreeMap<>();
+            snapshotLock.writeLock().lock();
+            try {
+                pending.forEach((productId, delta) -> {
+                    long value = delta.getAndSet(0);
+                    if (value != 0) {
+                        batch.put(productId, value);
+                    }
+                });
+                pendingUnits.set(0);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                unflushedSegments.add(journal.rotate());
+            } catch (IOException e) {
+                batch.forEach(this::restorePending);
+                log.error("Could not rotate reservation journal", e);
+                return;
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+
+            try {
+                applyToDatabase(batch, ReservationJournal.segmentNumber(unflushedSegments.get(unflushedSegments.size() - 1)));
+            } catch (RuntimeException e) {
+                // keep the segments and put the deltas back; the next flush retries them
+                batch.forEach(this::restorePending);
+                log.error("Flushing {} reserved products failed, will retry", batch.size(), e);
+                return;
+            }
+            for (Path segment : unflushedSegments) {
+                Files.deleteIfExists(segment);
+            }
+            unflushedSegments.clear();
+        } catch (IOException e) {
+            log.warn("Could not delete flushed reservation journal segment", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void restorePending(Long productId, Long delta) {
+        pending.computeIfAbsent(productId, id -> new AtomicLong()).addAndGet(delta);
+    }
+
+    // Segments are flushed oldest first, so everything up to lastSegment is in this transaction
+    private void applyToDatabase(Map<Long, Long> deltas, long lastSegment) {
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.forEach((productId, delta) -> productRepository.adjustQuantity(productId, delta, now));
+            journalStateRepository.markFlushed(lastSegment);
+            // last write of the transaction, after every row update (see ProductChangeFeed)
+            deltas.forEach((productId, delta) -> changeRepository.record(productId, ProductChange.STOCK, delta, now));
+        });
+    }
+
+    private void recover(long flushedSegment) throws IOException {
+        List<Path> segments = journal.existingSegments();
+        if (segments.isEmpty()) {
+            return;
+        }
+        List<Path> unflushed = new ArrayList<>();
+        for (Path segment : segments) {
+            if (ReservationJournal.segmentNumber(segment) > flushedSegment) {
+                unflushed.add(segment);
+            }
+        }
+        if (!unflushed.isEmpty()) {
+            Map<Long, Long> deltas = new TreeMap<>(ReservationJournal.read(unflushed));
+            deltas.values().removeIf(delta -> delta == 0);
+            applyToDatabase(deltas, ReservationJournal.segmentNumber(unflushed.get(unflushed.size() - 1)));
+            log.info("Replayed {} unflushed reservation journal segment(s) covering {} product(s)", unflushed.size(), deltas.size());
+        }
+        if (unflushed.size() < segments.size()) {
+            log.info("Skipped {} reservation journal segment(s) already written back", segments.size() - unflushed.size());
+        }
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        thresholdFlusher.shutdown();
+        if (enabled) {
+            flush();
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.eshop.product.inventory;
+
+import com.eshop.product.repository.OrderStockHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Makes the order service's stock calls safe to repeat. The order service retries a saga step
+ * whose outcome it could not record, so the same reduce or restore can arrive twice for one
+ * order; each line is applied only if it changes the order's hold on that product.
+ * <p>
+ * Holds are taken and released inside the stock transaction, before the product rows are
+ * touched, and kept for {@code product.stock-holds.retention} (longer than any saga runs).
+ */
+@Component
+public class OrderStockHolds {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStockHolds.class);
+    private static final int PRUNE_BATCH_SIZE = 10_000;
+
+    private final OrderStockHoldRepository holdRepository;
+    private final Duration retention;
+
+    public OrderStockHolds(OrderStockHoldRepository holdRepository,
+                           @Value("${product.stock-holds.retention:30d}") Duration retention) {
+        this.holdRepository = holdRepository;
+        this.retention = retention;
+    }
+
+    /** The lines of {@code byProduct} the order does not hold yet; they are held from now on. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public TreeMap<Long, Long> holdAll(Long orderId, Map<Long, Long> byProduct) {
+        Instant now = Instant.now();
+        TreeMap<Long, Long> fresh = new TreeMap<>();
+        byProduct.forEach((productId, quantity) -> {
+            if (holdRepository.hold(orderId, productId, quantity, now) == 1) {
+                fresh.put(productId, quantity);
+            } else {
+                log.info("Order {} already holds product {}; reduce not repeated", orderId, productId);
+            }
+        });
+        return fresh;
+    }
+
+    /** The lines of {@code byProduct} the order still holds; their holds are gone from now on. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public TreeMap<Long, Long> releaseAll(Long orderId, Map<Long, Long> byProduct) {
+        TreeMap<Long, Long> held = new TreeMap<>();
+        byProduct.forEach((productId, quantity) -> {
+            if (holdRepository.release(orderId, productId) == 1) {
+                held.put(productId, quantity);
+            } else {
+                log.info("Order {} holds no stock of product {}; restore not repeated", orderId, productId);
+            }
+        });
+        return held;
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock-holds.prune-interval-ms:3600000}")
+    public void prune() {
+        Instant cutoff = Instant.now().minus(retention);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = holdRepository.deleteCreatedBefore(cutoff, PRUNE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PRUNE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Pruned {} order stock holds older than {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.eshop.product.inventory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of in-memory stock changes that are not yet written to the database.
+ * Each record is a fixed 16 bytes (productId, delta). The journal is split into numbered
+ * segments; a segment is deleted once every change in it has been flushed. A segment can outlive
+ * its flush (a crash before the delete), so the owner also records the highest flushed segment
+ * number in the database and skips segments up to it on replay.
+ */
+class ReservationJournal {
+
+    private static final String PREFIX = "reservations-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_SIZE = 16;
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private Path currentSegment;
+    private long nextSegmentNumber;
+
+    /** New segments are numbered above {@code minSegmentNumber} and above every segment on disk. */
+    ReservationJournal(Path directory, boolean fsync, long minSegmentNumber) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        long next = Math.max(System.currentTimeMillis(), minSegmentNumber + 1);
+        for (Path segment : existingSegments()) {
+            next = Math.max(next, segmentNumber(segment) + 1);
+        }
+        this.nextSegmentNumber = next;
+    }
+
+    static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /** Segments left over from a previous run, oldest first. */
+    List<Path> existingSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /** Net delta per product recorded in the given segments; a torn trailing record is ignored. */
+    static Map<Long, Long> read(List<Path> segments) throws IOException {
+        Map<Long, Long> deltas = new HashMap<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (Path segment : segments) {
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                while (true) {
+                    record.clear();
+                    while (record.hasRemaining() && in.read(record) > 0) {
+                        // keep reading until the record is complete or EOF
+                    }
+                    if (record.hasRemaining()) {
+                        break;
+                    }
+                    record.flip();
+                    deltas.merge(record.getLong(), record.getLong(), Long::sum);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    synchronized void append(long productId, long delta) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(productId).putLong(delta).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /** Close the current segment (if any) and start a new one; returns the closed segment. */
+    synchronized Path rotate() throws IOException {
+        Path closed = currentSegment;
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        currentSegment = directory.resolve(PREFIX + String.format("%020d", nextSegmentNumber++) + SUFFIX);
+        channel = FileChannel.open(currentSegment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return closed;
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+}
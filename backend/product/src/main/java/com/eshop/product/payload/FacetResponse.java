@@ -0,0 +1,113 @@
+package com.eshop.product.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetResponse {
+    private long total;
+    private long inStock;
+    private List<CategoryCount> categories;
+    private List<PriceBucket> priceBuckets;
+    // change feed position the counts reflect
+    private long asOfSeq;
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(long inStock) {
+        this.inStock = inStock;
+    }
+
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryCount> categories) {
+        this.categories = categories;
+    }
+
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    public void setPriceBuckets(List<PriceBucket> priceBuckets) {
+        this.priceBuckets = priceBuckets;
+    }
+
+    public long getAsOfSeq() {
+        return asOfSeq;
+    }
+
+    public void setAsOfSeq(long asOfSeq) {
+        this.asOfSeq = asOfSeq;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryCount {
+        private Long categoryId;
+        private long count;
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private long min;
+        // exclusive; null for the open-ended last bucket
+        private Long max;
+        private long count;
+
+        public long getMin() {
+            return min;
+        }
+
+        public void setMin(long min) {
+            this.min = min;
+        }
+
+        public Long getMax() {
+            return max;
+        }
+
+        public void setMax(Long max) {
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
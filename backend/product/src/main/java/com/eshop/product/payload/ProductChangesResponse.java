@@ -0,0 +1,40 @@
+package com.eshop.product.payload;
+
+import com.eshop.product.entity.ProductChange;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponse {
+    private List<ProductChange> changes;
+    // pass as since= on the next call
+    private long nextSince;
+    private boolean hasMore;
+
+    public List<ProductChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<ProductChange> changes) {
+        this.changes = changes;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
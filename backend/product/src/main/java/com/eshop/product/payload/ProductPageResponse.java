@@ -0,0 +1,47 @@
+package com.eshop.product.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> content;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+    private int limit;
+
+    public List<ProductResponse> getContent() {
+        return content;
+    }
+
+    public void setContent(List<ProductResponse> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
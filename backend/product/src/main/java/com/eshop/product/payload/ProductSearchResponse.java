@@ -0,0 +1,47 @@
+package com.eshop.product.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private List<ProductResponse> content;
+    private int currentPage;
+    private long totalItems;
+    private int totalPages;
+
+    public List<ProductResponse> getContent() {
+        return content;
+    }
+
+    public void setContent(List<ProductResponse> content) {
+        this.content = content;
+    }
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    public void setCurrentPage(int currentPage) {
+        this.currentPage = currentPage;
+    }
+
+    public long getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(long totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+}
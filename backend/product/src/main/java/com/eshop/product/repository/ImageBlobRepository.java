@@ -0,0 +1,51 @@
+package com.eshop.product.repository;
+
+import com.eshop.product.entity.ImageBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /** Register a stored blob, or refresh its grace period when the same content is stored again. */
+    @Modifying
+    @Query(value = "insert into image_blobs (hash, extension, size_bytes, ref_count, created_at, updated_at) "
+            + "values (:hash, :extension, :sizeBytes, 0, :now, :now) "
+            + "on duplicate key update updated_at = :now", nativeQuery = true)
+    void upsert(@Param("hash") String hash,
+                @Param("extension") String extension,
+                @Param("sizeBytes") long sizeBytes,
+                @Param("now") Instant now);
+
+    /** The extension the blob was first stored with; its files and URLs always use this one. */
+    @Query("select b.extension from ImageBlob b where b.hash = :hash")
+    Optional<String> findExtension(@Param("hash") String hash);
+
+    /** Locking read: waits until a concurrent store of the same hash commits, then sees its row. */
+    @Query(value = "select count(*) from image_blobs where hash = :hash for update", nativeQuery = true)
+    long lockByHash(@Param("hash") String hash);
+
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount + :count, b.updatedAt = :now where b.hash = :hash")
+    int addReferences(@Param("hash") String hash, @Param("count") long count, @Param("now") Instant now);
+
+    /** Give references back; never takes the count below zero. */
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount - :count, b.updatedAt = :now "
+            + "where b.hash = :hash and b.refCount >= :count")
+    int removeReferences(@Param("hash") String hash, @Param("count") long count, @Param("now") Instant now);
+
+    // Served by idx_image_blobs_orphans; never scans referenced blobs
+    List<ImageBlob> findByRefCountAndUpdatedAtBeforeOrderByUpdatedAtAsc(Long refCount, Instant before, Limit limit);
+
+    /** Delete only if the blob is still unreferenced and nobody stored it again meanwhile. */
+    @Modifying
+    @Query("delete from ImageBlob b where b.hash = :hash and b.refCount = 0 and b.updatedAt < :before")
+    int deleteIfOrphaned(@Param("hash") String hash, @Param("before") Instant before);
+}
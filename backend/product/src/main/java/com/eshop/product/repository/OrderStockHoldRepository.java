@@ -0,0 +1,30 @@
+package com.eshop.product.repository;
+
+import com.eshop.product.entity.OrderStockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface OrderStockHoldRepository extends JpaRepository<OrderStockHold, OrderStockHold.Key> {
+
+    // 1 when the hold is new, 0 when the order already holds this product
+    @Modifying
+    @Query(value = "insert ignore into order_stock_holds (order_id, product_id, quantity, created_at) "
+            + "values (:orderId, :productId, :quantity, :now)", nativeQuery = true)
+    int hold(@Param("orderId") Long orderId, @Param("productId") Long productId,
+             @Param("quantity") Long quantity, @Param("now") Instant now);
+
+    // 1 when the hold existed, 0 when it was never taken or is already released
+    @Modifying
+    @Query(value = "delete from order_stock_holds where order_id = :orderId and product_id = :productId", nativeQuery = true)
+    int release(@Param("orderId") Long orderId, @Param("productId") Long productId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from order_stock_holds where created_at < :cutoff limit :limit", nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,75 @@
+package com.eshop.product.repository;
+
+import com.eshop.product.entity.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    /**
+     * Append a feed entry carrying the product row as this transaction sees it, in one insert,
+     * so callers never have to load the product. Must run inside the mutation's transaction and
+     * after the product row is written: that row lock orders one product's entries by seq.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert into product_changes (product_id, category_id, price, quantity, quantity_delta, change_type, changed_at) "
+            + "select p.product_id, p.category_id, p.price, p.quantity, :delta, :type, :now from products p "
+            + "where p.product_id = :productId", nativeQuery = true)
+    int record(@Param("productId") Long productId,
+               @Param("type") String type,
+               @Param("delta") Long delta,
+               @Param("now") Instant now);
+
+    /** {@link #record} for many products in one statement. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    default int recordAll(Collection<Long> productIds, String type, Instant now) {
+        return productIds.isEmpty() ? 0 : insertChanges(productIds, type, now);
+    }
+
+    @Modifying
+    @Query(value = "insert into product_changes (product_id, category_id, price, quantity, quantity_delta, change_type, changed_at) "
+            + "select p.product_id, p.category_id, p.price, p.quantity, null, :type, :now from products p "
+            + "where p.product_id in (:productIds) order by p.product_id", nativeQuery = true)
+    int insertChanges(@Param("productIds") Collection<Long> productIds,
+                      @Param("type") String type,
+                      @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into product_change_retention (id, pruned_through) values (1, 0)", nativeQuery = true)
+    int initRetention();
+
+    @Query(value = "select pruned_through from product_change_retention where id = 1", nativeQuery = true)
+    Optional<Long> findPrunedThrough();
+
+    // Sequence numbers only, for finding holes left by writers that have not committed (yet)
+    @Query(value = "select seq from product_changes where seq > :after order by seq limit :limit", nativeQuery = true)
+    List<Long> findSeqsAfter(@Param("after") long after, @Param("limit") int limit);
+
+    // Walks the primary key from the requested position, never past the watermark
+    List<ProductChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(Long since, Long through, Limit limit);
+
+    @Query(value = "select max(seq) from product_changes where changed_at < :cutoff", nativeQuery = true)
+    Long findLastSeqBefore(@Param("cutoff") Instant cutoff);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update product_change_retention set pruned_through = greatest(pruned_through, :seq) where id = 1", nativeQuery = true)
+    int markPrunedThrough(@Param("seq") long seq);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from product_changes where seq <= :through order by seq limit :batchSize", nativeQuery = true)
+    int deleteThrough(@Param("through") long through, @Param("batchSize") int batchSize);
+}
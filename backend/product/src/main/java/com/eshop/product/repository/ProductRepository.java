@@ -1,10 +1,83 @@
 package com.eshop.product.repository;
 
 import com.eshop.product.entity.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product,Long> {
+    // Unpaged listings fetch images in the same statement; paged ones rely on @BatchSize
+    // (a collection fetch join would force Hibernate to paginate in memory)
+    @Override
+    @EntityGraph(attributePaths = "imageUrls")
+    List<Product> findAll();
+
+    @EntityGraph(attributePaths = "imageUrls")
     List<Product> findByCategoryId(Long categoryId);
+
+    @EntityGraph(attributePaths = "imageUrls")
+    Optional<Product> findWithImagesByProductId(Long productId);
+
+    // Category subtree listings (a category plus all its descendants)
+    @EntityGraph(attributePaths = "imageUrls")
+    List<Product> findByCategoryIdIn(Collection<Long> categoryIds);
+
+    // Keyset pagination: stable order on the primary key, so page N costs the same as page 1
+    List<Product> findByProductIdGreaterThanOrderByProductIdAsc(Long productId, Limit limit);
+    List<Product> findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(Long categoryId, Long productId, Limit limit);
+    List<Product> findByCategoryIdInAndProductIdGreaterThanOrderByProductIdAsc(Collection<Long> categoryIds, Long productId, Limit limit);
+    List<Product> findByUpdatedAtGreaterThanEqualAndProductIdGreaterThanOrderByProductIdAsc(Instant since, Long productId, Limit limit);
+
+    /**
+     * Check-and-decrement in a single statement; returns 0 when the product is missing or
+     * does not have enough stock, so no row is ever oversold and no JVM lock is needed.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.updatedAt = :now " +
+            "where p.productId = :productId and p.quantity >= :quantity")
+    int decrementQuantity(@Param("productId") Long productId,
+                          @Param("quantity") Long quantity,
+                          @Param("now") Instant now);
+
+    // Unconditional adjustment, used to write back stock changes already granted elsewhere
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity + :delta, p.updatedAt = :now where p.productId = :productId")
+    int adjustQuantity(@Param("productId") Long productId,
+                       @Param("delta") Long delta,
+                       @Param("now") Instant now);
+
+    @Query("select p.quantity from Product p where p.productId = :productId")
+    Optional<Long> findQuantityById(@Param("productId") Long productId);
+
+    // Version probes for conditional GETs on category listings: an index range, never the image table
+    @Query("select count(p) as count, max(p.updatedAt) as lastUpdated from Product p where p.categoryId = :categoryId")
+    CategoryProductsVersion findCategoryProductsVersion(@Param("categoryId") Long categoryId);
+
+    @Query("select count(p) as count, max(p.updatedAt) as lastUpdated from Product p where p.categoryId in :categoryIds")
+    CategoryProductsVersion findCategoriesProductsVersion(@Param("categoryIds") Collection<Long> categoryIds);
+
+    // Facet snapshot load: four columns per row, no entity hydration
+    @Query("select p.productId as productId, p.categoryId as categoryId, p.price as price, p.quantity as quantity " +
+            "from Product p where p.productId > :after order by p.productId")
+    List<FacetRow> findFacetRows(@Param("after") Long after, Limit limit);
+
+    interface FacetRow {
+        Long getProductId();
+        Long getCategoryId();
+        Long getPrice();
+        Long getQuantity();
+    }
+
+    interface CategoryProductsVersion {
+        long getCount();
+        Instant getLastUpdated();
+    }
 }
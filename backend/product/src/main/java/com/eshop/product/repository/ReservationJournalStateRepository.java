@@ -0,0 +1,21 @@
+package com.eshop.product.repository;
+
+import com.eshop.product.entity.ReservationJournalState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ReservationJournalStateRepository extends JpaRepository<ReservationJournalState, Long> {
+
+    @Query(value = "select flushed_segment from reservation_journal_state where id = 1", nativeQuery = true)
+    Optional<Long> findFlushedSegment();
+
+    /** Advance the watermark; call inside the transaction that writes the segment's changes back. */
+    @Modifying
+    @Query(value = "insert into reservation_journal_state (id, flushed_segment) values (1, :segment) "
+            + "on duplicate key update flushed_segment = greatest(flushed_segment, :segment)", nativeQuery = true)
+    int markFlushed(@Param("segment") long segment);
+}
@@ -0,0 +1,44 @@
+package com.eshop.product.search;
+
+import com.eshop.product.entity.Product;
+
+import java.util.Objects;
+
+/**
+ * The searchable fields of a product as held by {@link ProductSearchIndex}.
+ */
+public record IndexedProduct(long productId,
+                             String productName,
+                             String description,
+                             Long categoryId,
+                             String categoryName,
+                             long price,
+                             long quantity) {
+
+    public static IndexedProduct of(Product product, String categoryName) {
+        return new IndexedProduct(
+                product.getProductId(),
+                product.getProductName(),
+                product.getDescription(),
+                product.getCategoryId(),
+                categoryName,
+                product.getPrice() != null ? product.getPrice() : 0L,
+                product.getQuantity() != null ? product.getQuantity() : 0L);
+    }
+
+    IndexedProduct withQuantity(long newQuantity) {
+        return new IndexedProduct(productId, productName, description, categoryId, categoryName, price, newQuantity);
+    }
+
+    IndexedProduct withCategoryName(String newCategoryName) {
+        return new IndexedProduct(productId, productName, description, categoryId, newCategoryName, price, quantity);
+    }
+
+    /** Same searchable text and category; quantity and price may differ. */
+    boolean sameText(IndexedProduct other) {
+        return Objects.equals(productName, other.productName)
+                && Objects.equals(description, other.description)
+                && Objects.equals(categoryId, other.categoryId)
+                && Objects.equals(categoryName, other.categoryName);
+    }
+}
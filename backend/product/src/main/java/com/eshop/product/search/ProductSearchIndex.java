@@ -0,0 +1,302 @@
+package com.eshop.product.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name, category name and description.
+ * <p>
+ * Each term maps to the products containing it with a field-weighted term frequency
+ * (name 3, category 2, description 1); results are ranked by the sum of weight * idf over
+ * the query terms. All query terms must match, the last one as a prefix so search-as-you-type
+ * works. Tokenizing happens outside the lock; only the posting updates are serialized.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float NAME_BOOST = 3f;
+    private static final float CATEGORY_BOOST = 2f;
+    private static final float DESCRIPTION_BOOST = 1f;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final Map<Long, Map<String, Float>> documentTerms = new HashMap<>();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile boolean ready;
+
+    public void index(IndexedProduct product) {
+        indexAll(List.of(product));
+    }
+
+    public void indexAll(Collection<IndexedProduct> products) {
+        Map<Long, Map<String, Float>> analyzed = new HashMap<>();
+        for (IndexedProduct product : products) {
+            analyzed.put(product.productId(), analyze(product));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedProduct product : products) {
+                removePostings(product.productId());
+                Map<String, Float> terms = analyzed.get(product.productId());
+                terms.forEach((term, weight) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.productId(), weight));
+                documentTerms.put(product.productId(), terms);
+                documents.put(product.productId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        modifications.incrementAndGet();
+    }
+
+    /** Stock changes do not touch the postings, only the stored quantity. */
+    public void adjustQuantity(long productId, long delta) {
+        lock.writeLock().lock();
+        try {
+            documents.computeIfPresent(productId, (id, doc) -> doc.withQuantity(doc.quantity() + delta));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        modifications.incrementAndGet();
+    }
+
+    public SearchHits search(SearchQuery query) {
+        List<String> terms = tokenize(query.text()).stream().distinct().toList();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = terms.isEmpty() ? null : score(terms);
+            Collection<Long> candidates = scores != null ? scores.keySet() : documents.keySet();
+
+            // Only the first (page + 1) * size matches in sort order are needed, so keep them in a
+            // bounded heap whose head is the worst kept one instead of sorting every match; an empty
+            // query over the whole catalog then costs n log k under the read lock, not n log n.
+            // long arithmetic: a large page number must not wrap to a negative window
+            Comparator<IndexedProduct> order = comparator(query.sort(), scores);
+            long window = Math.max(0L, ((long) query.page() + 1) * query.size());
+            PriorityQueue<IndexedProduct> kept =
+                    new PriorityQueue<>((int) Math.min(window, candidates.size()) + 1, order.reversed());
+            int total = 0;
+            for (Long productId : candidates) {
+                IndexedProduct doc = documents.get(productId);
+                if (doc == null || !accepts(doc, query)) {
+                    continue;
+                }
+                total++;
+                if (kept.size() < window) {
+                    kept.add(doc);
+                } else if (window > 0 && order.compare(doc, kept.peek()) < 0) {
+                    kept.poll();
+                    kept.add(doc);
+                }
+            }
+
+            List<IndexedProduct> top = new ArrayList<>(kept);
+            top.sort(order);
+            int from = (int) Math.min((long) query.page() * query.size(), top.size());
+            List<Long> page = top.subList(from, top.size()).stream().map(IndexedProduct::productId).toList();
+            return new SearchHits(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-analyze the products of a category under its new name. A product re-indexed meanwhile
+     * with other text or another category is left to that newer version.
+     */
+    public void renameCategory(long categoryId, String categoryName) {
+        List<IndexedProduct> stale = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (IndexedProduct doc : documents.values()) {
+                if (doc.categoryId() != null && doc.categoryId() == categoryId
+                        && !Objects.equals(doc.categoryName(), categoryName)) {
+                    stale.add(doc);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Map<String, Float>> analyzed = new HashMap<>();
+        for (IndexedProduct doc : stale) {
+            analyzed.put(doc.productId(), analyze(doc.withCategoryName(categoryName)));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedProduct doc : stale) {
+                IndexedProduct current = documents.get(doc.productId());
+                if (current == null || !current.sameText(doc)) {
+                    continue;
+                }
+                removePostings(doc.productId());
+                Map<String, Float> terms = analyzed.get(doc.productId());
+                terms.forEach((term, weight) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.productId(), weight));
+                documentTerms.put(doc.productId(), terms);
+                documents.put(doc.productId(), current.withCategoryName(categoryName));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        modifications.incrementAndGet();
+    }
+
+    /** The categories of the indexed products. */
+    public Set<Long> categoryIds() {
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new HashSet<>();
+            for (IndexedProduct doc : documents.values()) {
+                if (doc.categoryId() != null) {
+                    ids.add(doc.categoryId());
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long modifications() {
+        return modifications.get();
+    }
+
+    List<IndexedProduct> documents() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(documents.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----------------- internals -----------------
+
+    private Map<Long, Float> score(List<String> terms) {
+        double totalDocs = Math.max(documents.size(), 1);
+        Map<Long, Float> scores = null;
+
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            Map<String, Map<Long, Float>> matching;
+            if (i == terms.size() - 1) {
+                matching = postings.subMap(term, true, term + Character.MAX_VALUE, true);
+            } else {
+                Map<Long, Float> exact = postings.get(term);
+                matching = exact != null ? Map.of(term, exact) : Map.of();
+            }
+
+            Map<Long, Float> termScores = new HashMap<>();
+            for (Map<Long, Float> posting : matching.values()) {
+                float idf = (float) Math.log(1 + totalDocs / posting.size());
+                posting.forEach((productId, weight) -> termScores.merge(productId, weight * idf, Float::sum));
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((productId, score) -> score + termScores.get(productId));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private static boolean accepts(IndexedProduct doc, SearchQuery query) {
+        return (query.categoryId() == null || query.categoryId().equals(doc.categoryId()))
+                && (query.minPrice() == null || doc.price() >= query.minPrice())
+                && (query.maxPrice() == null || doc.price() <= query.maxPrice());
+    }
+
+    private static Comparator<IndexedProduct> comparator(String sort, Map<Long, Float> scores) {
+        Comparator<IndexedProduct> byId = Comparator.comparingLong(IndexedProduct::productId);
+        String key = sort == null ? "relevance" : sort.toLowerCase(Locale.ROOT);
+        return switch (key) {
+            case "price_asc" -> Comparator.comparingLong(IndexedProduct::price).thenComparing(byId);
+            case "price_desc" -> Comparator.comparingLong(IndexedProduct::price).reversed().thenComparing(byId);
+            case "newest" -> byId.reversed();
+            case "name" -> Comparator.comparing((IndexedProduct p) -> p.productName() == null ? "" : p.productName(),
+                    String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            default -> scores == null
+                    ? byId
+                    : Comparator.comparing((IndexedProduct p) -> scores.getOrDefault(p.productId(), 0f)).reversed()
+                            .thenComparing(byId);
+        };
+    }
+
+    private void removePostings(long productId) {
+        Map<String, Float> previous = documentTerms.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Float> analyze(IndexedProduct product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.productName(), NAME_BOOST);
+        addField(weights, product.categoryName(), CATEGORY_BOOST);
+        addField(weights, product.description(), DESCRIPTION_BOOST);
+        return weights;
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float boost) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, boost, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,9 @@
+package com.eshop.product.search;
+
+import java.util.List;
+
+/**
+ * One page of matching product ids, best match first, plus the total number of matches.
+ */
+public record SearchHits(List<Long> productIds, int total) {
+}
@@ -0,0 +1,253 @@
+package com.eshop.product.search;
+
+import com.eshop.product.cache.CategoryCache;
+import com.eshop.product.entity.Product;
+import com.eshop.product.payload.CategoryResponse;
+import com.eshop.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Fills {@link ProductSearchIndex} on startup and persists it between restarts.
+ * <p>
+ * With a snapshot file present, the index is restored from it and only products updated
+ * since the snapshot are read from the database. Otherwise the catalog is read in keyset
+ * batches and the batches are analyzed in parallel. Loading runs in the background; searches
+ * are refused until it has finished. Category names are refreshed after a snapshot restore and
+ * whenever CATEGORY-SERVICE reports a change, since renaming a category does not touch its
+ * products' updatedAt.
+ */
+@Component
+public class SearchIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x50534958; // "PSIX"
+    private static final int SNAPSHOT_VERSION = 1;
+    // updatedAt is set by the application clock; re-read a little more than strictly needed
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private final ProductRepository productRepository;
+    private final CategoryCache categoryCache;
+    private final ProductSearchIndex index;
+    private final Path snapshotFile;
+    private final int batchSize;
+    private final int parallelism;
+
+    private volatile long snapshotModifications = -1;
+
+    public SearchIndexLoader(ProductRepository productRepository,
+                             CategoryCache categoryCache,
+                             ProductSearchIndex index,
+                             @Value("${product.search.snapshot-file:data/search/products.snapshot}") String snapshotFile,
+                             @Value("${product.search.rebuild-batch-size:1000}") int batchSize,
+                             @Value("${product.search.rebuild-parallelism:4}") int parallelism) {
+        this.productRepository = productRepository;
+        this.categoryCache = categoryCache;
+        this.index = index;
+        this.snapshotFile = Paths.get(snapshotFile);
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Thread loader = new Thread(this::loadIndex, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadIndex() {
+        long started = System.currentTimeMillis();
+        try {
+            Instant snapshotTime = restoreSnapshot();
+            if (snapshotTime != null) {
+                indexFromDatabase(snapshotTime.minus(CATCH_UP_MARGIN));
+                refreshCategoryNames(null); // categories renamed while this instance was down
+            } else {
+                indexFromDatabase(null);
+            }
+            index.markReady();
+            log.info("Search index ready with {} products in {} ms", index.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Search index load failed", e);
+        }
+    }
+
+    /** Read products (all, or those updated since the given instant) and index them batch by batch. */
+    private void indexFromDatabase(Instant since) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            long after = 0L;
+            while (true) {
+                List<Product> batch = since != null
+                        ? productRepository.findByUpdatedAtGreaterThanEqualAndProductIdGreaterThanOrderByProductIdAsc(
+                                since, after, Limit.of(batchSize))
+                        : productRepository.findByProductIdGreaterThanOrderByProductIdAsc(after, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                after = batch.get(batch.size() - 1).getProductId();
+
+                List<IndexedProduct> docs = toIndexed(batch);
+                pending.add(workers.submit(() -> index.indexAll(docs)));
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Re-index the products of a category (of every indexed category when null) under the name
+     * the category cache now returns. Categories it cannot resolve keep their indexed name.
+     */
+    public void refreshCategoryNames(Long categoryId) {
+        Collection<Long> categoryIds = categoryId != null ? List.of(categoryId) : index.categoryIds();
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        categoryCache.getAll(categoryIds).forEach((id, category) -> index.renameCategory(id, category.getName()));
+    }
+
+    private List<IndexedProduct> toIndexed(List<Product> products) {
+        Set<Long> categoryIds = products.stream()
+                .map(Product::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, CategoryResponse> categories = categoryCache.getAll(categoryIds);
+
+        List<IndexedProduct> docs = new ArrayList<>(products.size());
+        for (Product product : products) {
+            CategoryResponse category = product.getCategoryId() != null ? categories.get(product.getCategoryId()) : null;
+            docs.add(IndexedProduct.of(product, category != null ? category.getName() : product.getCategoryName()));
+        }
+        return docs;
+    }
+
+    // ----------------- snapshot -----------------
+
+    @Scheduled(fixedDelayString = "${product.search.snapshot-interval-ms:600000}",
+            initialDelayString = "${product.search.snapshot-interval-ms:600000}")
+    public void writeSnapshotIfChanged() {
+        if (index.isReady() && index.modifications() != snapshotModifications) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void writeSnapshotOnShutdown() {
+        writeSnapshotIfChanged();
+    }
+
+    private synchronized void writeSnapshot() {
+        long modifications = index.modifications();
+        Instant takenAt = Instant.now();
+        List<IndexedProduct> docs = index.documents();
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(takenAt.toEpochMilli());
+                out.writeInt(docs.size());
+                for (IndexedProduct doc : docs) {
+                    out.writeLong(doc.productId());
+                    writeString(out, doc.productName());
+                    writeString(out, doc.description());
+                    out.writeLong(doc.categoryId() != null ? doc.categoryId() : -1L);
+                    writeString(out, doc.categoryName());
+                    out.writeLong(doc.price());
+                    out.writeLong(doc.quantity());
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotModifications = modifications;
+        } catch (IOException e) {
+            log.warn("Could not write search index snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /** Restore the index from the snapshot file; returns when it was taken, or null if unusable. */
+    private Instant restoreSnapshot() {
+        if (!Files.isReadable(snapshotFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring search index snapshot {} with unknown format", snapshotFile);
+                return null;
+            }
+            Instant takenAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readInt();
+            List<IndexedProduct> docs = new ArrayList<>(batchSize);
+            for (int i = 0; i < count; i++) {
+                long productId = in.readLong();
+                String name = readString(in);
+                String description = readString(in);
+                long categoryId = in.readLong();
+                String categoryName = readString(in);
+                docs.add(new IndexedProduct(productId, name, description, categoryId >= 0 ? categoryId : null,
+                        categoryName, in.readLong(), in.readLong()));
+                if (docs.size() == batchSize) {
+                    index.indexAll(docs);
+                    docs = new ArrayList<>(batchSize);
+                }
+            }
+            index.indexAll(docs);
+            log.info("Restored {} products from search index snapshot taken at {}", count, takenAt);
+            return takenAt;
+        } catch (IOException e) {
+            log.warn("Could not read search index snapshot {}, rebuilding from the database", snapshotFile, e);
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
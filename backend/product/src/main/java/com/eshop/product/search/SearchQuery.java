@@ -0,0 +1,13 @@
+package com.eshop.product.search;
+
+/**
+ * Parameters of a catalog search. Null filters are ignored; page is zero-based.
+ */
+public record SearchQuery(String text,
+                          Long categoryId,
+                          Long minPrice,
+                          Long maxPrice,
+                          String sort,
+                          int page,
+                          int size) {
+}
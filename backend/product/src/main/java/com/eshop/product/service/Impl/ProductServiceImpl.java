@@ -1,31 +1,93 @@
 package com.eshop.product.service.Impl;
 
-import com.eshop.product.client.CategoryClient;
+import com.eshop.product.cache.CategoryCache;
+import com.eshop.product.cache.ProductDocumentCache;
+import com.eshop.product.cache.ProductDocumentCache.ProductDocument;
 import com.eshop.product.entity.Product;
+import com.eshop.product.entity.ProductChange;
 import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.facets.CatalogSnapshot;
+import com.eshop.product.image.BlobStore;
+import com.eshop.product.inventory.InventoryReservationEngine;
+import com.eshop.product.inventory.OrderStockHolds;
 import com.eshop.product.payload.CategoryResponse;
+import com.eshop.product.payload.FacetResponse;
+import com.eshop.product.payload.ProductPageResponse;
 import com.eshop.product.payload.ProductRequest;
 import com.eshop.product.payload.ProductResponse;
+import com.eshop.product.payload.ProductSearchResponse;
+import com.eshop.product.payload.ReduceQuantityRequest;
+import com.eshop.product.repository.ProductChangeRepository;
 import com.eshop.product.repository.ProductRepository;
+import com.eshop.product.search.IndexedProduct;
+import com.eshop.product.search.ProductSearchIndex;
+import com.eshop.product.search.SearchHits;
+import com.eshop.product.search.SearchQuery;
 import com.eshop.product.service.ProductService;
-import org.springframework.beans.BeanUtils;
+import com.eshop.product.utils.AfterCommit;
+import com.eshop.product.utils.ProductCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
-    private final CategoryClient categoryClient;
+    private final CategoryCache categoryCache;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final InventoryReservationEngine reservationEngine;
+    private final ProductSearchIndex searchIndex;
+    private final BlobStore blobStore;
+    private final ProductDocumentCache documentCache;
+    private final ProductChangeRepository changeRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final OrderStockHolds stockHolds;
 
-    public ProductServiceImpl(ProductRepository productRepository, CategoryClient categoryClient) {
+    public ProductServiceImpl(ProductRepository productRepository,
+                              CategoryCache categoryCache,
+                              ObjectMapper objectMapper,
+                              EntityManager entityManager,
+                              InventoryReservationEngine reservationEngine,
+                              ProductSearchIndex searchIndex,
+                              BlobStore blobStore,
+                              ProductDocumentCache documentCache,
+                              ProductChangeRepository changeRepository,
+                              CatalogSnapshot catalogSnapshot,
+                              OrderStockHolds stockHolds) {
         this.productRepository = productRepository;
-        this.categoryClient = categoryClient;
+        this.categoryCache = categoryCache;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.reservationEngine = reservationEngine;
+        this.searchIndex = searchIndex;
+        this.blobStore = blobStore;
+        this.documentCache = documentCache;
+        this.changeRepository = changeRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.stockHolds = stockHolds;
     }
 
     // -------------------------------------------------------------
@@ -54,7 +116,17 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productRepository.save(product);
-        return mapToResponse(product);
+        blobStore.retain(product.getImageUrls());
+        changeRepository.record(product.getProductId(), ProductChange.CREATED, null, Instant.now());
+        ProductResponse response = mapToResponse(product);
+
+        IndexedProduct indexed = IndexedProduct.of(product, response.getCategoryName());
+        ProductDocument document = render(product, response);
+        AfterCommit.run(() -> {
+            searchIndex.index(indexed);
+            documentCache.put(document);
+        });
+        return response;
     }
 
     // -------------------------------------------------------------
@@ -62,10 +134,7 @@ public class ProductServiceImpl implements ProductService {
     // -------------------------------------------------------------
     @Override
     public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(productRepository.findAll());
     }
 
     // -------------------------------------------------------------
@@ -79,57 +148,413 @@ public class ProductServiceImpl implements ProductService {
         return mapToResponse(product);
     }
 
+    // -------------------------------------------------------------
+    // 3b) Product page document (cache first; a hit touches neither the database nor a connection)
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductDocument getProductDocument(Long productId) {
+        ProductDocument cached = documentCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = documentCache.stamp();
+        Product product = productRepository
+                .findWithImagesByProductId(productId)
+                .orElseThrow(() -> new ProductServiceException("Product not found", "NOT_FOUND"));
+        ProductDocument document = render(product, mapToResponse(product));
+        documentCache.putIfUnchanged(document, stamp);
+        return document;
+    }
+
+    private ProductDocument render(Product product, ProductResponse response) {
+        try {
+            return new ProductDocument(product.getProductId(), product.getCategoryId(),
+                    productVersion(product.getProductId(), product.getUpdatedAt(), product.getCategoryId()),
+                    objectMapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getProductId(), e);
+        }
+    }
+
     // -------------------------------------------------------------
     // 4) Get Products by Category ID
     // -------------------------------------------------------------
     @Override
     public List<ProductResponse> getProductsByCategory(Long categoryId) {
         List<Product> products = productRepository.findByCategoryId(categoryId);
-        return products.stream()
-                .map(this::mapToResponse)
+        return mapToResponses(products);
+    }
+
+    // -------------------------------------------------------------
+    // 4b) Keyset-paginated listings
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductPage(Long afterProductId, int limit) {
+        // fetch one extra row to learn whether another page exists
+        List<Product> rows = productRepository.findByProductIdGreaterThanOrderByProductIdAsc(
+                afterProductId != null ? afterProductId : 0L, Limit.of(limit + 1));
+        return toPage(rows, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductPageByCategory(Long categoryId, Long afterProductId, int limit) {
+        List<Product> rows = productRepository.findByCategoryIdAndProductIdGreaterThanOrderByProductIdAsc(
+                categoryId, afterProductId != null ? afterProductId : 0L, Limit.of(limit + 1));
+        return toPage(rows, limit);
+    }
+
+    // -------------------------------------------------------------
+    // 4c) Versions for conditional GETs
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(readOnly = true)
+    public String getCategoryProductsVersion(Long categoryId) {
+        if (reservationEngine.isEnabled()) {
+            return null; // quantities change in memory without touching updatedAt
+        }
+        ProductRepository.CategoryProductsVersion version = productRepository.findCategoryProductsVersion(categoryId);
+        return "pc" + categoryId + "-" + version.getCount() + "-" + epochMillis(version.getLastUpdated())
+                + "-c" + categoryVersion(categoryId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getCategoryTreeProductsVersion(Long categoryId) {
+        if (reservationEngine.isEnabled()) {
+            return null;
+        }
+        List<Long> subtree = categoryCache.getSubtreeIds(categoryId);
+        ProductRepository.CategoryProductsVersion version = productRepository.findCategoriesProductsVersion(subtree);
+        // the subtree's shape is part of the version: a category moving in or out changes the listing
+        return "pt" + categoryId + "-" + subtree.hashCode() + "-" + version.getCount() + "-"
+                + epochMillis(version.getLastUpdated()) + "-c" + categoryVersion(categoryId);
+    }
+
+    private String productVersion(Long productId, Instant updatedAt, Long categoryId) {
+        String tag = "p" + productId + "-" + epochMillis(updatedAt) + "-c" + categoryVersion(categoryId);
+        // reserved stock is not written back on every sale
+        return reservationEngine.isEnabled()
+                ? tag + "-q" + reservationEngine.availableQuantity(productId)
+                : tag;
+    }
+
+    private String categoryVersion(Long categoryId) {
+        CategoryResponse category = categoryId != null ? categoryCache.get(categoryId) : null;
+        return category != null ? Long.toString(epochMillis(category.getUpdatedAt())) : "none";
+    }
+
+    private static long epochMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : 0L;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsByCategoryTree(Long categoryId) {
+        return mapToResponses(productRepository.findByCategoryIdIn(categoryCache.getSubtreeIds(categoryId)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductPageByCategoryTree(Long categoryId, Long afterProductId, int limit) {
+        List<Product> rows = productRepository.findByCategoryIdInAndProductIdGreaterThanOrderByProductIdAsc(
+                categoryCache.getSubtreeIds(categoryId), afterProductId != null ? afterProductId : 0L, Limit.of(limit + 1));
+        return toPage(rows, limit);
+    }
+
+    private ProductPageResponse toPage(List<Product> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<Product> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? ProductCursor.encode(page.get(page.size() - 1).getProductId()) : null;
+        return new ProductPageResponse(mapToResponses(page), nextCursor, hasMore, limit);
+    }
+
+    // -------------------------------------------------------------
+    // 4c) Full-text search
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(readOnly = true)
+    public ProductSearchResponse searchProducts(SearchQuery query) {
+        if (!searchIndex.isReady()) {
+            // a partly loaded index would silently return partial results
+            throw new ProductServiceException("Search index is still loading", "SEARCH_NOT_READY");
+        }
+        SearchHits hits = searchIndex.search(query);
+
+        // load the page in one query, then restore the ranking order
+        Map<Long, Product> byId = productRepository.findAllById(hits.productIds())
+                .stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<Product> ranked = hits.productIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        int totalPages = (int) Math.ceil((double) hits.total() / query.size());
+        return new ProductSearchResponse(mapToResponses(ranked), query.page(), hits.total(), totalPages);
+    }
+
+    // -------------------------------------------------------------
+    // 4d) Facets (memory only, no database access)
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FacetResponse getFacets(Long categoryId, Long minPrice, Long maxPrice, boolean inStockOnly, long[] priceEdges) {
+        if (!catalogSnapshot.isReady()) {
+            throw new ProductServiceException("Facets are still loading", "FACETS_NOT_READY");
+        }
+        return catalogSnapshot.facets(categoryId, minPrice, maxPrice, inStockOnly, priceEdges);
+    }
+
+    // -------------------------------------------------------------
+    // 4e) Streaming NDJSON export
+    // -------------------------------------------------------------
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(Instant since, OutputStream out) throws IOException {
+        // Walks the catalog in keyset chunks and clears the persistence context after each one,
+        // so memory stays flat regardless of catalog size
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class);
+        long after = 0L;
+        while (true) {
+            List<Product> chunk = since != null
+                    ? productRepository.findByUpdatedAtGreaterThanEqualAndProductIdGreaterThanOrderByProductIdAsc(
+                            since, after, Limit.of(EXPORT_CHUNK_SIZE))
+                    : productRepository.findByProductIdGreaterThanOrderByProductIdAsc(after, Limit.of(EXPORT_CHUNK_SIZE));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            for (ProductResponse response : mapToResponses(chunk)) {
+                out.write(writer.writeValueAsBytes(response));
+                out.write('\n');
+            }
+            out.flush();
+
+            after = chunk.get(chunk.size() - 1).getProductId();
+            entityManager.clear();
+            if (chunk.size() < EXPORT_CHUNK_SIZE) {
+                break;
+            }
+        }
     }
 
     // -------------------------------------------------------------
     // 5) Reduce Quantity
     // -------------------------------------------------------------
     @Override
-    public void reduceQuantity(Long productId, Long quantity) {
-        Product product = productRepository
-                .findById(productId)
-                .orElseThrow(() ->
-                        new ProductServiceException("Product not found with id: " + productId, "PRODUCT_NOT_FOUND"));
+    public void reduceQuantity(Long productId, Long quantity, Long orderId) {
+        if (quantity == null || quantity <= 0) {
+            throw new ProductServiceException("Quantity must be positive for product id: " + productId, "INVALID_QUANTITY");
+        }
+        if (orderId != null && stockHolds.holdAll(orderId, Map.of(productId, quantity)).isEmpty()) {
+            return;
+        }
+
+        if (reservationEngine.isEnabled()) {
+            reservationEngine.reserve(productId, quantity);
+        } else {
+            Instant now = Instant.now();
+            decrement(productId, quantity, now);
+            // reserved stock reaches the change feed when the reservation engine flushes it
+            changeRepository.record(productId, ProductChange.STOCK, -quantity, now);
+        }
+        AfterCommit.run(() -> {
+            searchIndex.adjustQuantity(productId, -quantity);
+            documentCache.evict(productId);
+        });
+    }
 
-        if (product.getQuantity() < quantity) {
+    private void decrement(Long productId, Long quantity, Instant now) {
+        int updated = productRepository.decrementQuantity(productId, quantity, now);
+        if (updated == 0) {
+            // Only the failure path pays for the extra lookup that tells the two cases apart
+            if (!productRepository.existsById(productId)) {
+                throw new ProductServiceException("Product not found with id: " + productId, "PRODUCT_NOT_FOUND");
+            }
             throw new ProductServiceException("Insufficient quantity for product id: " + productId, "INSUFFICIENT_QUANTITY");
         }
+    }
 
-        product.setQuantity(product.getQuantity() - quantity);
-        productRepository.save(product);
+    // -------------------------------------------------------------
+    // 6) Reduce Quantity for several products at once
+    // -------------------------------------------------------------
+    @Override
+    public void reduceQuantities(List<ReduceQuantityRequest> requests, Long orderId) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ProductServiceException("At least one item is required", "INVALID_QUANTITY");
+        }
+
+        TreeMap<Long, Long> byProduct = mergeByProduct(requests);
+        if (orderId != null) {
+            // holds are taken in productId order too, before any product row
+            byProduct = stockHolds.holdAll(orderId, byProduct);
+            if (byProduct.isEmpty()) {
+                return;
+            }
+        }
+
+        if (reservationEngine.isEnabled()) {
+            reservationEngine.reserveAll(byProduct);
+            TreeMap<Long, Long> reserved = byProduct;
+            AfterCommit.run(() -> reserved.forEach((productId, quantity) -> {
+                searchIndex.adjustQuantity(productId, -quantity);
+                documentCache.evict(productId);
+            }));
+            return;
+        }
+
+        // Any failure propagates and rolls back the lines already applied (and their holds)
+        Instant now = Instant.now();
+        byProduct.forEach((productId, quantity) -> decrement(productId, quantity, now));
+        recordStock(byProduct, -1, now);
+    }
+
+    @Override
+    public void restoreQuantities(List<ReduceQuantityRequest> requests, Long orderId) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ProductServiceException("At least one item is required", "INVALID_QUANTITY");
+        }
+        TreeMap<Long, Long> byProduct = mergeByProduct(requests);
+        if (orderId != null) {
+            byProduct = stockHolds.releaseAll(orderId, byProduct);
+            if (byProduct.isEmpty()) {
+                return;
+            }
+        }
+        if (reservationEngine.isEnabled()) {
+            byProduct.forEach(this::release);
+            return;
+        }
+        Instant now = Instant.now();
+        byProduct.forEach((productId, quantity) -> increment(productId, quantity, now));
+        recordStock(byProduct, 1, now);
+    }
+
+    // Feed entries go after the row updates and are the transaction's last write: each product's
+    // entries are then numbered in the order its updates commit, and no seq hole stays open long
+    private void recordStock(Map<Long, Long> byProduct, int sign, Instant now) {
+        byProduct.forEach((productId, quantity) -> changeRepository.record(productId, ProductChange.STOCK, sign * quantity, now));
+        AfterCommit.run(() -> byProduct.forEach((productId, quantity) -> {
+            searchIndex.adjustQuantity(productId, sign * quantity);
+            documentCache.evict(productId);
+        }));
+    }
+
+    // Merge duplicate lines and apply in ascending productId order: concurrent batches then
+    // take row locks in the same order and cannot deadlock each other
+    private static TreeMap<Long, Long> mergeByProduct(List<ReduceQuantityRequest> requests) {
+        TreeMap<Long, Long> byProduct = new TreeMap<>();
+        for (ReduceQuantityRequest request : requests) {
+            if (request.getProductId() == null) {
+                throw new ProductServiceException("productId is required", "INVALID_QUANTITY");
+            }
+            if (request.getQuantity() == null || request.getQuantity() <= 0) {
+                throw new ProductServiceException("Quantity must be positive for product id: " + request.getProductId(), "INVALID_QUANTITY");
+            }
+            byProduct.merge(request.getProductId(), request.getQuantity(), Long::sum);
+        }
+        return byProduct;
+    }
+
+    @Override
+    public void restoreQuantity(Long productId, Long quantity, Long orderId) {
+        if (quantity == null || quantity <= 0) {
+            throw new ProductServiceException("Quantity must be positive for product id: " + productId, "INVALID_QUANTITY");
+        }
+        if (orderId != null && stockHolds.releaseAll(orderId, Map.of(productId, quantity)).isEmpty()) {
+            return;
+        }
+        release(productId, quantity);
+    }
+
+    private void release(Long productId, Long quantity) {
+        if (reservationEngine.isEnabled()) {
+            reservationEngine.release(productId, quantity);
+        } else {
+            Instant now = Instant.now();
+            increment(productId, quantity, now);
+            changeRepository.record(productId, ProductChange.STOCK, quantity, now);
+        }
+        AfterCommit.run(() -> {
+            searchIndex.adjustQuantity(productId, quantity);
+            documentCache.evict(productId);
+        });
+    }
+
+    private void increment(Long productId, Long quantity, Instant now) {
+        if (productRepository.adjustQuantity(productId, quantity, now) == 0) {
+            throw new ProductServiceException("Product not found with id: " + productId, "PRODUCT_NOT_FOUND");
+        }
     }
 
     // -------------------------------------------------------------
     // Utility: map Entity → Response DTO
     // -------------------------------------------------------------
-    private ProductResponse mapToResponse(Product product) {
+    // Plain setters: listings map thousands of rows, so no reflective property copying here
+    // (ProductMappingBenchmark compares this with BeanUtils.copyProperties)
+    static ProductResponse copyFields(Product product) {
         ProductResponse response = new ProductResponse();
-        BeanUtils.copyProperties(product, response); // copies productName, price, quantity, imageUrls, description, etc.
+        response.setProductId(product.getProductId());
+        response.setProductName(product.getProductName());
+        response.setPrice(product.getPrice());
+        response.setQuantity(product.getQuantity());
+        response.setCategoryId(product.getCategoryId());
+        response.setCategoryName(product.getCategoryName());
+        response.setDescription(product.getDescription());
+        response.setImageUrls(product.getImageUrls() != null ? new ArrayList<>(product.getImageUrls()) : null);
+        return response;
+    }
 
-        // If your ProductResponse uses different field names than Product,
-        // you can set them explicitly here as well. Example:
-        // response.setDescription(product.getDescription());
+    private ProductResponse mapToResponse(Product product) {
+        Map<Long, CategoryResponse> categories = product.getCategoryId() != null
+                ? resolveCategories(List.of(product.getCategoryId()))
+                : Map.of();
+        return mapToResponse(product, categories);
+    }
 
-        try {
-            if (product.getCategoryId() != null) {
-                CategoryResponse category = categoryClient.getCategoryById(product.getCategoryId());
+    // Listings resolve all distinct categories of the result set at once (cache first, one remote call for misses)
+    private List<ProductResponse> mapToResponses(List<Product> products) {
+        Set<Long> categoryIds = products.stream()
+                .map(Product::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, CategoryResponse> categories = resolveCategories(categoryIds);
+        return products.stream()
+                .map(product -> mapToResponse(product, categories))
+                .collect(Collectors.toList());
+    }
+
+    private ProductResponse mapToResponse(Product product, Map<Long, CategoryResponse> categories) {
+        ProductResponse response = copyFields(product);
+
+        // Reservation mode: the in-memory counter is ahead of the last flushed DB value
+        Long reserved = reservationEngine.isEnabled() ? reservationEngine.availableQuantity(product.getProductId()) : null;
+        if (reserved != null) {
+            response.setQuantity(reserved);
+        }
+
+        if (product.getCategoryId() != null) {
+            CategoryResponse category = categories.get(product.getCategoryId());
+            if (category != null) {
                 response.setCategoryName(category.getName());
                 response.setCategoryImageUrl(category.getImageUrl());
+            } else {
+                response.setCategoryName("Unknown");
+                response.setCategoryImageUrl(null);
             }
-        } catch (Exception e) {
-            response.setCategoryName("Unknown");
-            response.setCategoryImageUrl(null);
         }
 
         return response;
     }
+
+    private Map<Long, CategoryResponse> resolveCategories(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return Map.of();
+        }
+        return categoryCache.getAll(categoryIds);
+    }
 }
@@ -1,18 +1,59 @@
 package com.eshop.product.service;
 
+import com.eshop.product.cache.ProductDocumentCache.ProductDocument;
+import com.eshop.product.payload.FacetResponse;
+import com.eshop.product.payload.ProductPageResponse;
 import com.eshop.product.payload.ProductRequest;
 import com.eshop.product.payload.ProductResponse;
+import com.eshop.product.payload.ProductSearchResponse;
+import com.eshop.product.payload.ReduceQuantityRequest;
+import com.eshop.product.search.SearchQuery;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.List;
 
 public interface ProductService {
     ProductResponse addProduct(ProductRequest productRequest);
     List<ProductResponse> getAllProducts();
     ProductResponse getProductById(Long productId);
+
+    // product page read model: cached, pre-serialized ProductResponse with its ETag
+    ProductDocument getProductDocument(Long productId);
     List<ProductResponse> getProductsByCategory(Long categoryId);
 
+    // keyset-paginated listings; afterProductId is exclusive (null = first page)
+    ProductPageResponse getProductPage(Long afterProductId, int limit);
+    ProductPageResponse getProductPageByCategory(Long categoryId, Long afterProductId, int limit);
+
+    // same listings over a category and all of its descendant categories
+    List<ProductResponse> getProductsByCategoryTree(Long categoryId);
+    ProductPageResponse getProductPageByCategoryTree(Long categoryId, Long afterProductId, int limit);
+
+    // ETag value for conditional GETs, computed without loading products (null = no ETag)
+    String getCategoryProductsVersion(Long categoryId);
+    String getCategoryTreeProductsVersion(Long categoryId);
+
+
+    // full-text search over name, description and category
+    ProductSearchResponse searchProducts(SearchQuery query);
+
+    // category / price / stock facets from the in-memory catalog snapshot
+    FacetResponse getFacets(Long categoryId, Long minPrice, Long maxPrice, boolean inStockOnly, long[] priceEdges);
+
+    // NDJSON export of the whole catalog (or of products changed since the given instant)
+    void exportProducts(Instant since, OutputStream out) throws IOException;
+
+    // most important; orderId (optional) makes a repeated call for the same order a no-op
+    void reduceQuantity(Long productId, Long quantity, Long orderId);
+
+    // all-or-nothing stock reduction for every line of an order
+    void reduceQuantities(List<ReduceQuantityRequest> requests, Long orderId);
 
+    // gives back stock taken by reduceQuantity (order compensation)
+    void restoreQuantity(Long productId, Long quantity, Long orderId);
 
-    // most important
-    void reduceQuantity(Long productId, Long quantity);
+    // all lines of a failed order in one transaction
+    void restoreQuantities(List<ReduceQuantityRequest> requests, Long orderId);
 }
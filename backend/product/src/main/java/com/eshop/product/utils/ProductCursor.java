@@ -0,0 +1,35 @@
+package com.eshop.product.utils;
+
+import com.eshop.product.exception.ProductServiceException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque page token for keyset pagination. Clients must treat it as a black box;
+ * internally it only carries the last productId of the previous page.
+ */
+public final class ProductCursor {
+
+    private static final String PREFIX = "p1:";
+
+    private ProductCursor() {
+    }
+
+    public static String encode(Long lastProductId) {
+        String raw = PREFIX + lastProductId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ProductServiceException("Invalid page cursor", "INVALID_CURSOR");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.eshop.product.inventory;
+
+import com.eshop.product.ProductApplication;
+import com.eshop.product.TestcontainersConfiguration;
+import com.eshop.product.entity.Product;
+import com.eshop.product.repository.ProductRepository;
+import com.eshop.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One hot SKU reduced by 16 threads at once, through the conditional UPDATE ({@code jpa}) and
+ * through the in-memory reservation engine ({@code reservation}). Each mode gets its own fork,
+ * MySQL container and application context; needs Docker.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eshop.product.inventory.StockReservationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+public class StockReservationBenchmark {
+
+	@Param({"jpa", "reservation"})
+	public String mode;
+
+	private ConfigurableApplicationContext context;
+	private ProductService productService;
+	private Long productId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = SpringApplication.from(ProductApplication::main)
+				.with(TestcontainersConfiguration.class)
+				.run("--spring.main.web-application-type=none",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.generate_statistics=false",
+						"--product.inventory.reservation.enabled=" + "reservation".equals(mode))
+				.getApplicationContext();
+		productService = context.getBean(ProductService.class);
+
+		Product product = new Product();
+		product.setProductName("benchmark-hot-sku");
+		product.setPrice(999L);
+		product.setQuantity(Long.MAX_VALUE / 2); // never runs out during a run
+		productId = context.getBean(ProductRepository.class).save(product).getProductId();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	@Benchmark
+	public void reduceOneUnit() {
+		productService.reduceQuantity(productId, 1L, null);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(StockReservationBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,115 @@
+package com.eshop.product.repository;
+
+import com.eshop.product.TestcontainersConfiguration;
+import com.eshop.product.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listings must cost a constant number of statements however many products they return:
+ * unpaged ones fetch images through the entity graph, keyset pages through @BatchSize.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductListingStatementCountTest {
+
+	private static final long CATEGORY_ID = 7L;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void unpagedListingIsOneStatementForAnyNumberOfProducts() {
+		seed(5);
+		long small = statementsFor(() -> touchImages(productRepository.findAll()));
+		seed(60);
+		long large = statementsFor(() -> touchImages(productRepository.findAll()));
+
+		assertThat(small).isEqualTo(1);
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void categoryListingIsOneStatementForAnyNumberOfProducts() {
+		seed(5);
+		long small = statementsFor(() -> touchImages(productRepository.findByCategoryId(CATEGORY_ID)));
+		seed(60);
+		long large = statementsFor(() -> touchImages(productRepository.findByCategoryId(CATEGORY_ID)));
+
+		assertThat(small).isEqualTo(1);
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void keysetPageLoadsImagesWithOneBatchedStatement() {
+		seed(120);
+		long[] lastId = new long[1];
+		long firstPage = statementsFor(() -> {
+			List<Product> page = productRepository.findByProductIdGreaterThanOrderByProductIdAsc(0L, Limit.of(50));
+			touchImages(page);
+			lastId[0] = page.get(page.size() - 1).getProductId();
+		});
+		long secondPage = statementsFor(() -> touchImages(
+				productRepository.findByProductIdGreaterThanOrderByProductIdAsc(lastId[0], Limit.of(50))));
+
+		// one SELECT for the page, one batched SELECT for the image lists (batch size 100 > page size)
+		assertThat(firstPage).isEqualTo(2);
+		assertThat(secondPage).isEqualTo(firstPage);
+	}
+
+	private void seed(int count) {
+		for (int i = 0; i < count; i++) {
+			Product product = new Product();
+			product.setProductName("product-" + i);
+			product.setPrice(100L + i);
+			product.setQuantity(10L);
+			product.setCategoryId(CATEGORY_ID);
+			product.setImageUrls(List.of("http://img/" + i + "-a.jpg", "http://img/" + i + "-b.jpg"));
+			productRepository.save(product);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private long statementsFor(Runnable listing) {
+		entityManager.clear();
+		statistics.clear();
+		listing.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private static void touchImages(List<Product> products) {
+		assertThat(products).isNotEmpty();
+		products.forEach(product -> assertThat(product.getImageUrls()).hasSize(2));
+	}
+}
@@ -0,0 +1,74 @@
+package com.eshop.product.service.Impl;
+
+import com.eshop.product.entity.Product;
+import com.eshop.product.payload.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-object cost of the Product to ProductResponse field copy: the reflective
+ * BeanUtils.copyProperties mapping listings used before, against the plain setters in
+ * {@link ProductServiceImpl#copyFields}. The GC profiler reports allocation per operation.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eshop.product.service.Impl.ProductMappingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+	private Product product;
+
+	@Setup
+	public void createProduct() {
+		product = new Product();
+		product.setProductId(42L);
+		product.setProductName("Noise cancelling headphones");
+		product.setPrice(19_999L);
+		product.setQuantity(350L);
+		product.setCategoryId(7L);
+		product.setCategoryName("Audio");
+		product.setDescription("Over-ear, 30 hours of battery, USB-C");
+		product.setImageUrls(new ArrayList<>(List.of("http://img/42-a.jpg", "http://img/42-b.jpg")));
+	}
+
+	@Benchmark
+	public ProductResponse reflective() {
+		ProductResponse response = new ProductResponse();
+		BeanUtils.copyProperties(product, response);
+		return response;
+	}
+
+	@Benchmark
+	public ProductResponse setters() {
+		return ProductServiceImpl.copyFields(product);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ProductMappingBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,150 @@
+package com.eshop.product.service;
+
+import com.eshop.product.TestcontainersConfiguration;
+import com.eshop.product.entity.Product;
+import com.eshop.product.exception.ProductServiceException;
+import com.eshop.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads reduce the stock of one SKU at once through the conditional UPDATE.
+ * Exactly the available units must be granted (no oversell, no lost units) and the
+ * row must end at zero, never below. The same load also runs through the previous
+ * read-check-write path for a throughput comparison.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class StockReductionConcurrencyTest {
+
+	private static final Logger log = LoggerFactory.getLogger(StockReductionConcurrencyTest.class);
+
+	private static final long STOCK = 2_000;
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 200; // 6400 attempts for 2000 units
+	private static final long ATTEMPTS = (long) THREADS * ATTEMPTS_PER_THREAD;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void concurrentReductionsOfOneSkuNeverOversell() throws Exception {
+		Long productId = newSku();
+
+		Run run = hammer(productId, id -> productService.reduceQuantity(id, 1L, null));
+		log.info("conditional UPDATE: {}", run);
+
+		assertThat(run.granted()).isEqualTo(STOCK);
+		assertThat(run.granted() + run.rejected()).isEqualTo(ATTEMPTS);
+		assertThat(productRepository.findQuantityById(productId)).contains(0L);
+	}
+
+	@Test
+	void conditionalUpdateComparedWithReadCheckWrite() throws Exception {
+		Long baselineId = newSku();
+		Run baseline = hammer(baselineId, this::readCheckWrite);
+		long baselineLeft = productRepository.findQuantityById(baselineId).orElseThrow();
+
+		Long productId = newSku();
+		Run conditional = hammer(productId, id -> productService.reduceQuantity(id, 1L, null));
+
+		// units granted beyond what the row lost: lost updates of the unlocked read-modify-write
+		long oversold = baseline.granted() - (STOCK - baselineLeft);
+		log.info("read-check-write:   {}, {} unit(s) oversold", baseline, oversold);
+		log.info("conditional UPDATE: {}, {}x the baseline throughput", conditional,
+				String.format("%.2f", conditional.opsPerSecond() / baseline.opsPerSecond()));
+
+		assertThat(baseline.granted() + baseline.rejected()).isEqualTo(ATTEMPTS);
+		assertThat(conditional.granted()).isEqualTo(STOCK);
+	}
+
+	// The reduceQuantity body before the conditional UPDATE: load, check, save in one transaction
+	private void readCheckWrite(Long productId) {
+		transactionTemplate.executeWithoutResult(status -> {
+			Product product = productRepository.findById(productId).orElseThrow();
+			if (product.getQuantity() < 1L) {
+				throw new ProductServiceException("Insufficient quantity for product id: " + productId, "INSUFFICIENT_QUANTITY");
+			}
+			product.setQuantity(product.getQuantity() - 1L);
+			productRepository.save(product);
+		});
+	}
+
+	private Long newSku() {
+		Product product = new Product();
+		product.setProductName("hot-sku");
+		product.setPrice(999L);
+		product.setQuantity(STOCK);
+		return productRepository.save(product).getProductId();
+	}
+
+	private Run hammer(Long productId, Consumer<Long> reduceOne) throws Exception {
+		AtomicLong granted = new AtomicLong();
+		AtomicLong rejected = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			workers.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					try {
+						reduceOne.accept(productId);
+						granted.incrementAndGet();
+					} catch (ProductServiceException e) {
+						assertThat(e.getStatusCode()).isEqualTo("INSUFFICIENT_QUANTITY");
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+
+		long began = System.nanoTime();
+		start.countDown();
+		for (Future<?> worker : workers) {
+			worker.get(5, TimeUnit.MINUTES);
+		}
+		long elapsedNanos = System.nanoTime() - began;
+		pool.shutdown();
+		return new Run(granted.get(), rejected.get(), elapsedNanos);
+	}
+
+	private record Run(long granted, long rejected, long elapsedNanos) {
+
+		double opsPerSecond() {
+			return ATTEMPTS / (elapsedNanos / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d attempts from %d threads in %d ms (%.0f ops/s), %d granted, %d rejected",
+					ATTEMPTS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), opsPerSecond(), granted, rejected);
+		}
+	}
+}
@@ -15,7 +15,7 @@ export default function AdminProducts() {
   const fetchAll = async () => {
     setLoading(true);
     try {
-      const res = await api.get("/api/products");
+      const res = await api.get("/api/products", { params: { all: true } });
       let data = Array.isArray(res.data) ? res.data : res.data?.content || [];
 
       // Normalize data fields to make frontend display consistent
@@ -1,13 +1,15 @@
-import React, { useEffect } from "react";
+import React, { useEffect, useState } from "react";
 import { useSelector, useDispatch } from "react-redux";
 import { getTotalCartAmount, emptyCart } from "../../../redux/actions/cart-actions";
 import api from "../../../services/api";
+import OrderService from "../../../services/OrderService";
 import { useNavigate } from "react-router-dom";
 import { showToast } from "../../../utils/ToastService";
 
 const CartSummary = () => {
   const dispatch = useDispatch();
   const navigate = useNavigate();
+  const [placing, setPlacing] = useState(false);
 
   const { cartTotalAmount = 0, cartTotalQuantity = 0, carts = [] } =
     useSelector((state) => state.cart || {});
@@ -56,6 +58,7 @@ const CartSummary = () => {
       items: orderItems,
     };
 
+    setPlacing(true);
     try {
       const res = await api.post("/api/orders/placed", payload);
 
@@ -66,9 +69,20 @@ const CartSummary = () => {
         return;
       }
 
-      showToast("Order placed successfully!", "success");
-      dispatch(emptyCart());
-      navigate(`/order-confirmation/${orderId}`, { state: { orderId } });
+      // 202 only means the order was accepted; stock and payment are still pending
+      showToast("Confirming your order…", "info");
+      const order = await OrderService.waitForOutcome(orderId);
+      if (order?.status === "FAILED") {
+        showToast("⚠️ Your order could not be completed. Please try again.", "danger");
+        return;
+      }
+      if (order?.status === "PLACED") {
+        showToast("Order placed successfully!", "success");
+        dispatch(emptyCart());
+      } else {
+        showToast("Your order is still being processed.", "warning");
+      }
+      navigate(`/order-confirmation/${orderId}`, { state: { orderId, order } });
     } catch (error) {
       const msg =
         error?.response?.data?.errorMessage ||
@@ -76,6 +90,8 @@ const CartSummary = () => {
         "Failed to place order.";
       console.error("Checkout failed:", error);
       showToast(`⚠️ ${msg}`, "danger");
+    } finally {
+      setPlacing(false);
     }
   };
 
@@ -105,10 +121,10 @@ const CartSummary = () => {
 
       <button
         className="btn btn-success w-100 fw-semibold"
-        disabled={carts.length === 0}
+        disabled={carts.length === 0 || placing}
         onClick={handleCheckout}
       >
-        Proceed to Pay
+        {placing ? "Confirming order…" : "Proceed to Pay"}
       </button>
     </div>
   );
@@ -1,45 +1,81 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { useLocation } from "react-router-dom";
 import ProductGrid from "../../components/ProductGrid";
-import api from "../../services/api";
+import ProductService from "../../services/ProductService";
 
 const ProductList = () => {
   const [products, setProducts] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
   const [error, setError] = useState(null);
   const location = useLocation();
+  // bumped on every new listing so a late page of the previous one is dropped
+  const listingRef = useRef(0);
 
-  useEffect(() => {
-    const params = new URLSearchParams(location.search);
-    const categoryId = params.get("category");
+  const categoryId = new URLSearchParams(location.search).get("category");
 
-    let endpoint = "/api/products";
-    if (categoryId) endpoint = `/api/products/by-category/${categoryId}`;
+  const fetchPage = (cursor) =>
+    categoryId
+      ? ProductService.getPageByCategory(categoryId, cursor)
+      : ProductService.getPage(cursor);
 
+  useEffect(() => {
+    const listing = ++listingRef.current;
     setLoading(true);
     setError(null);
+    setProducts([]);
+    setNextCursor(null);
 
-    api
-      .get(endpoint)
-      .then((res) => {
-        const data = res.data;
-        // normalize: array | {content:[]} | {products:[]}
-        const list = Array.isArray(data)
-          ? data
-          : data?.content ?? data?.products ?? [];
-        setProducts(list);
+    // first page only; the rest is fetched on "Load more"
+    fetchPage(null)
+      .then((page) => {
+        if (listing !== listingRef.current) return;
+        setProducts(page.content);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
       })
       .catch((err) => {
+        if (listing !== listingRef.current) return;
         console.error("❌ Error fetching products:", err);
         setError("Failed to load products. Please try again.");
       })
-      .finally(() => setLoading(false));
-  }, [location.search]);
+      .finally(() => {
+        if (listing === listingRef.current) setLoading(false);
+      });
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [categoryId]);
+
+  const loadMore = () => {
+    if (!nextCursor || loadingMore) return;
+    const listing = listingRef.current;
+    setLoadingMore(true);
+    fetchPage(nextCursor)
+      .then((page) => {
+        if (listing !== listingRef.current) return;
+        setProducts((prev) => [...prev, ...page.content]);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch((err) => {
+        console.error("❌ Error fetching more products:", err);
+      })
+      .finally(() => setLoadingMore(false));
+  };
 
   return (
     <div className="container mt-4">
       <h2 className="text-center mb-4">Product List</h2>
       <ProductGrid products={products} loading={loading} error={error} />
+      {!loading && !error && nextCursor && (
+        <div className="text-center my-4">
+          <button
+            className="btn btn-outline-primary"
+            disabled={loadingMore}
+            onClick={loadMore}
+          >
+            {loadingMore ? "Loading..." : "Load more"}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
@@ -9,11 +9,13 @@ import {
 import CartItemCard from "../../components/Cart/CartItemCard";
 import Navbar from "../../components/Navbar";
 import { showToast } from "../../utils/ToastService";
+import OrderService from "../../services/OrderService";
 
 const CartPage = () => {
   const dispatch = useDispatch();
   const navigate = useNavigate();
   const cart = useSelector((state) => state.cart);
+  const [placing, setPlacing] = useState(false);
 
   const cartItems = (cart.carts || []).map((item, idx) => ({
     ...item,
@@ -148,7 +150,7 @@ const CartPage = () => {
 
               <button
                 className="btn btn-warning w-100 fw-semibold mb-3"
-                disabled={cartItems.length === 0}
+                disabled={cartItems.length === 0 || placing}
                 style={{
                   backgroundColor: "#FFD814",
                   borderColor: "#FCD200",
@@ -179,6 +181,7 @@ const CartPage = () => {
                     paymentMethod: "CREDIT_CARD",
                   };
 
+                  setPlacing(true);
                   import("../../services/api").then(({ default: api }) =>
                     api
                       .post("/api/orders/placed", orderPayload, {
@@ -190,14 +193,33 @@ const CartPage = () => {
                           "Content-Type": "application/json",
                         },
                       })
-                      .then((res) => {
+                      .then(async (res) => {
                         const orderId =
                           typeof res.data === "object"
                             ? res.data.orderId
                             : res.data;
-                        showToast("Order placed successfully!", "success");
-                        dispatch(emptyCart());
-                        navigate(`/order-confirmation/${orderId}`);
+                        // 202: accepted, but stock and payment are still pending
+                        showToast("Confirming your order…", "info");
+                        const order = await OrderService.waitForOutcome(orderId);
+                        if (order?.status === "FAILED") {
+                          showToast(
+                            "Your order could not be completed. Please try again.",
+                            "danger"
+                          );
+                          return;
+                        }
+                        if (order?.status === "PLACED") {
+                          showToast("Order placed successfully!", "success");
+                          dispatch(emptyCart());
+                        } else {
+                          showToast(
+                            "Your order is still being processed.",
+                            "warning"
+                          );
+                        }
+                        navigate(`/order-confirmation/${orderId}`, {
+                          state: { orderId, order },
+                        });
                       })
                       .catch((err) => {
                       
@@ -215,10 +237,11 @@ const CartPage = () => {
                         );
                         showToast("Checkout failed", "danger");
                       })
+                      .finally(() => setPlacing(false))
                   );
                 }}
               >
-                Proceed to Checkout
+                {placing ? "Confirming order…" : "Proceed to Checkout"}
               </button>
 
               <hr />
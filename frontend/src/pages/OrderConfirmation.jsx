@@ -1,6 +1,6 @@
 import React, { useEffect, useMemo, useState } from "react";
 import { useParams, useLocation, Link } from "react-router-dom";
-import api from "../services/api";
+import OrderService, { isSettled } from "../services/OrderService";
 import Navbar from "../components/Navbar";
 
 const OrderConfirmation = () => {
@@ -23,6 +23,7 @@ const OrderConfirmation = () => {
 
   const [order, setOrder] = useState(orderFromState || null);
   const [loading, setLoading] = useState(!orderFromState);
+  const [polling, setPolling] = useState(!isSettled(orderFromState));
   const [error, setError] = useState(null);
 
   const items = useMemo(() => {
@@ -30,28 +31,40 @@ const OrderConfirmation = () => {
     return Array.isArray(raw) ? raw : [];
   }, [order]);
 
+  // The order is accepted before stock and payment are taken: keep polling
+  // until it is PLACED or FAILED instead of confirming whatever we got first.
   useEffect(() => {
-    if (order || !effectiveOrderId) return; 
+    if (isSettled(orderFromState) || !effectiveOrderId) return;
 
     let cancelled = false;
     (async () => {
       try {
-        setLoading(true);
+        setPolling(true);
         setError(null);
-        const res = await api.get(`/api/orders/${effectiveOrderId}`);
-        if (!cancelled) setOrder(res.data);
+        const latest = await OrderService.waitForOutcome(effectiveOrderId, {
+          onUpdate: (o) => {
+            if (cancelled) return;
+            setOrder(o);
+            setLoading(false);
+          },
+          isCancelled: () => cancelled,
+        });
+        if (!cancelled) setOrder(latest);
       } catch (e) {
         if (!cancelled) setError(e);
         console.error("Failed to fetch order:", e);
       } finally {
-        if (!cancelled) setLoading(false);
+        if (!cancelled) {
+          setLoading(false);
+          setPolling(false);
+        }
       }
     })();
 
     return () => {
       cancelled = true;
     };
-  }, [effectiveOrderId, order]);
+  }, [effectiveOrderId, orderFromState]);
 
   // ---- RENDER STATES ----
   if (!effectiveOrderId && !order) {
@@ -87,6 +100,46 @@ const OrderConfirmation = () => {
   const displayId = order.id ?? order.orderId ?? effectiveOrderId;
   const total = Number(order.totalAmount ?? order.total ?? 0);
 
+  if (order.status === "FAILED") {
+    return (
+      <>
+        <Navbar />
+        <div className="container py-5 text-center" style={{ maxWidth: "900px" }}>
+          <h2 className="fw-bold text-danger">Order Failed</h2>
+          <p className="text-muted">
+            Order <b>#{displayId}</b> could not be completed: an item ran out of
+            stock or the payment did not go through.
+          </p>
+          <Link to="/cart" className="btn btn-primary">Back to Cart</Link>
+        </div>
+      </>
+    );
+  }
+
+  if (order.status !== "PLACED") {
+    return (
+      <>
+        <Navbar />
+        <div className="container py-5 text-center" style={{ maxWidth: "900px" }}>
+          {polling ? (
+            <>
+              <div className="spinner-border text-primary" role="status" />
+              <p className="mt-3">
+                Confirming order <b>#{displayId}</b>: reserving stock and taking payment...
+              </p>
+            </>
+          ) : (
+            <>
+              <h4 className="fw-bold">Order #{displayId} is still being processed</h4>
+              <p className="text-muted">Refresh this page in a moment for the final result.</p>
+              <Link to="/" className="btn btn-primary">Continue Shopping</Link>
+            </>
+          )}
+        </div>
+      </>
+    );
+  }
+
   return (
     <>
       <Navbar />
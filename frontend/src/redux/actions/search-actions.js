@@ -1,8 +1,6 @@
 // redux/actions/search-actions.js
 import api from "../../services/api"; // baseURL -> http://localhost:9191
 
-let PRODUCT_CACHE = null;
-
 /* ---------------- helpers ---------------- */
 const toAbs = (u) => {
   if (!u) return null;
@@ -57,15 +55,43 @@ const normalize = (p) => {
 };
 
 /* ---------------- data fetch (BACKEND ONLY) ---------------- */
-const fetchAllProducts = async () => {
-  // Your backend may return a plain array OR a Spring Page { content, ... }.
-  const res = await api.get("/api/products");
-  const raw = Array.isArray(res.data?.content)
-    ? res.data.content
-    : Array.isArray(res.data)
-    ? res.data
-    : [];
+const SEARCH_PAGE_SIZE = 100;
+
+// The search box picks departments by name; the backend filters by category id.
+// Active categories are loaded once and reused for every search.
+let categoryIdsByName = null;
+
+const resolveCategoryId = async (name) => {
+  if (!categoryIdsByName) {
+    categoryIdsByName = api
+      .get("/api/categories/active")
+      .then((res) => {
+        const list = Array.isArray(res.data) ? res.data : res.data?.content ?? [];
+        return new Map(list.map((c) => [String(c.name).toLowerCase(), c.id]));
+      })
+      .catch((err) => {
+        categoryIdsByName = null; // retry on the next search
+        throw err;
+      });
+  }
+  return (await categoryIdsByName).get(name.toLowerCase());
+};
 
+// Server-side full-text search, filtered by category id when a department is selected
+const fetchSearchResults = async (query, category) => {
+  let categoryId;
+  if (category) {
+    categoryId = await resolveCategoryId(category);
+    if (categoryId === undefined) return []; // no such category, so nothing can be in it
+  }
+  const res = await api.get("/api/products/search", {
+    params: {
+      ...(query ? { q: query } : {}),
+      ...(categoryId !== undefined ? { categoryId } : {}),
+      size: SEARCH_PAGE_SIZE,
+    },
+  });
+  const raw = Array.isArray(res.data?.content) ? res.data.content : [];
   return raw.map(normalize);
 };
 
@@ -75,22 +101,12 @@ export const searchProducts = (query = "", category = "All") => {
     dispatch({ type: "SEARCH_REQUEST" });
 
     try {
-      if (!PRODUCT_CACHE) PRODUCT_CACHE = await fetchAllProducts();
-
-      const q = (query || "").trim().toLowerCase();
-      const c = (category || "").trim().toLowerCase();
-      const isAll = c === "all" || c === "all departments";
+      const q = (query || "").trim();
+      const c = (category || "").trim();
+      const isAll = !c || c.toLowerCase() === "all" || c.toLowerCase() === "all departments";
 
-      const filtered = PRODUCT_CACHE.filter((p) => {
-        const name = (p.title || "").toLowerCase();
-        const desc = (p.description || "").toLowerCase();
-        const cat = (p.categoryName || "").toLowerCase();
-        const matchesQuery = !q || name.includes(q) || desc.includes(q);
-        const matchesCategory = isAll || cat.includes(c);
-        return matchesQuery && matchesCategory;
-      });
-
-      dispatch({ type: "SEARCH_SUCCESS", payload: filtered });
+      const results = await fetchSearchResults(q, isAll ? "" : c);
+      dispatch({ type: "SEARCH_SUCCESS", payload: results });
     } catch (err) {
       dispatch({
         type: "SEARCH_FAIL",
@@ -104,7 +120,4 @@ export const searchProducts = (query = "", category = "All") => {
 };
 
 export const clearSearchResults = () => ({ type: "CLEAR_SEARCH_RESULTS" });
-export const invalidateSearchCache = () => {
-  PRODUCT_CACHE = null;
-  return { type: "SEARCH_CACHE_INVALIDATED" };
-};
+export const invalidateSearchCache = () => ({ type: "SEARCH_CACHE_INVALIDATED" });
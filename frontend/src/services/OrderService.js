@@ -0,0 +1,38 @@
+import api from "./api";
+
+// POST /api/orders/placed answers 202 as soon as the order row exists; stock
+// and payment are taken afterwards. Poll the order until it is PLACED or FAILED
+// before telling the shopper anything.
+const POLL_INTERVAL_MS = 1000;
+const POLL_TIMEOUT_MS = 60000;
+
+export const isSettled = (order) =>
+  order?.status === "PLACED" || order?.status === "FAILED";
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// Resolves with the settled order, or with the latest one if it is still
+// pending when the timeout runs out. onUpdate sees every poll result.
+const waitForOutcome = async (
+  orderId,
+  { onUpdate = () => {}, isCancelled = () => false } = {}
+) => {
+  const deadline = Date.now() + POLL_TIMEOUT_MS;
+  for (;;) {
+    const res = await api.get(`/api/orders/${orderId}`);
+    const order = res.data;
+    onUpdate(order);
+    if (isSettled(order) || isCancelled() || Date.now() >= deadline) {
+      return order;
+    }
+    await sleep(POLL_INTERVAL_MS);
+  }
+};
+
+const OrderService = {
+  place: (payload) => api.post("/api/orders/placed", payload),
+  getById: (id) => api.get(`/api/orders/${id}`),
+  waitForOutcome,
+};
+
+export default OrderService;
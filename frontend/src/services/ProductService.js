@@ -1,7 +1,29 @@
 import api from "./api";
 
+// Listing endpoints return a plain array unless a page is asked for; with limit
+// (and the previous page's nextCursor) they return { content, nextCursor, hasMore }.
+// Callers fetch one page at a time and ask for the next only when it is needed.
+export const PAGE_SIZE = 24;
+
+const getPage = async (path, cursor) => {
+  const res = await api.get(path, {
+    params: { limit: PAGE_SIZE, ...(cursor ? { cursor } : {}) },
+  });
+  const data = res.data;
+  if (Array.isArray(data)) {
+    return { content: data, nextCursor: null, hasMore: false };
+  }
+  return {
+    content: data?.content ?? [],
+    nextCursor: data?.nextCursor ?? null,
+    hasMore: Boolean(data?.hasMore && data?.nextCursor),
+  };
+};
+
 const ProductService = {
-  getAll: () => api.get("/api/products"),
+  getPage: (cursor) => getPage("/api/products", cursor),
+  getPageByCategory: (categoryId, cursor) =>
+    getPage(`/api/products/by-category/${categoryId}`, cursor),
   getById: (id) => api.get(`/api/products/${id}`),
   addProductWithImages: (formData) =>
     api.post("/api/products/add-with-images", formData, {